@@ -0,0 +1,82 @@
+package com.imagepicker.benchmark;
+
+import com.imagepicker.utils.CountingOutputStream;
+import com.imagepicker.utils.ExposedByteArrayOutputStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Base64 of a picked photo for outputMode 'data': streamed in 8KB reads into a growing buffer like
+ * getBase64StringFromInputStream, against a single write into a buffer pre-sized like encodeImageToBase64.
+ *
+ * android.util.Base64OutputStream needs a device, java.util.Base64 stands in for it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class Base64Benchmark
+{
+    private static final int READ_BUFFER_SIZE = 8192;
+    private static final Charset US_ASCII = Charset.forName("US-ASCII");
+
+    @Param({SampleJpeg.VGA, SampleJpeg.MP_12, SampleJpeg.MP_48})
+    public String size;
+
+    private byte[] jpeg;
+
+    @Setup
+    public void setUp() throws IOException
+    {
+        jpeg = SampleJpeg.create(size, 0);
+    }
+
+    @Benchmark
+    public String streamed() throws IOException
+    {
+        final InputStream input = new ByteArrayInputStream(jpeg);
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[READ_BUFFER_SIZE];
+        try (OutputStream base64Output = Base64.getEncoder().wrap(output))
+        {
+            int bytesRead;
+            while ((bytesRead = input.read(buffer)) != -1)
+            {
+                base64Output.write(buffer, 0, bytesRead);
+            }
+        }
+        return output.toString("US-ASCII");
+    }
+
+    @Benchmark
+    public String presized() throws IOException
+    {
+        final ExposedByteArrayOutputStream base64Buffer = new ExposedByteArrayOutputStream(
+                (int) (4 * ((jpeg.length + 2L) / 3)));
+        final CountingOutputStream output = new CountingOutputStream(Base64.getEncoder().wrap(base64Buffer));
+        try
+        {
+            output.write(jpeg, 0, jpeg.length);
+        }
+        finally
+        {
+            output.close();
+        }
+        return new String(base64Buffer.getBuffer(), 0, base64Buffer.size(), US_ASCII);
+    }
+}
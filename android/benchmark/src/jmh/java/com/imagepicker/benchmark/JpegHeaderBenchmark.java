@@ -0,0 +1,97 @@
+package com.imagepicker.benchmark;
+
+import com.imagepicker.media.JpegHeaderParser;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.w3c.dom.Node;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+/**
+ * Single scan of the JPEG header against two passes over it, one parsing all the metadata
+ * and one reading the bounds.
+ *
+ * ExifInterface and BitmapFactory need a device, so the two passes use the JDK JPEG reader,
+ * which like them walks and parses every header segment.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JpegHeaderBenchmark
+{
+    private static final int HEADER_SIZE = 128 * 1024;
+
+    @Param({SampleJpeg.VGA, SampleJpeg.MP_12, SampleJpeg.MP_48})
+    public String size;
+
+    /**
+     * Size of the APP segment between the Exif and the frame, like an embedded thumbnail
+     */
+    @Param({"0", "16384"})
+    public int paddingSize;
+
+    private byte[] header;
+
+    @Setup
+    public void setUp() throws IOException
+    {
+        final byte[] jpeg = SampleJpeg.create(size, paddingSize);
+        header = Arrays.copyOf(jpeg, Math.min(jpeg.length, HEADER_SIZE));
+    }
+
+    @Benchmark
+    public JpegHeaderParser.Result scanHeader()
+    {
+        return JpegHeaderParser.parse(header, header.length);
+    }
+
+    @Benchmark
+    public long twoPasses() throws IOException
+    {
+        final Node metadata;
+        final ImageReader metadataReader = createReader();
+        try
+        {
+            metadata = metadataReader.getImageMetadata(0).getAsTree("javax_imageio_jpeg_image_1.0");
+        }
+        finally
+        {
+            metadataReader.dispose();
+        }
+
+        final ImageReader boundsReader = createReader();
+        try
+        {
+            return ((long) boundsReader.getWidth(0) << 32 | boundsReader.getHeight(0))
+                    ^ metadata.getChildNodes().getLength();
+        }
+        finally
+        {
+            boundsReader.dispose();
+        }
+    }
+
+    private ImageReader createReader() throws IOException
+    {
+        final ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(header));
+        final Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+        final ImageReader reader = readers.next();
+        reader.setInput(input, true, false);
+        return reader;
+    }
+}
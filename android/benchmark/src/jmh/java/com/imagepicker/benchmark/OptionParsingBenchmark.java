@@ -0,0 +1,47 @@
+package com.imagepicker.benchmark;
+
+import com.imagepicker.media.OutputFormat;
+import com.imagepicker.utils.ContentDigest;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookups of the string options ImageConfig.updateFromOptions resolves for every pick,
+ * and the pass-through check of the picked image's mime type.
+ *
+ * Reading the ReadableMap itself needs React Native, only the lookups run here.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class OptionParsingBenchmark
+{
+    /**
+     * The first and last formats, and one which isn't known
+     */
+    @Param({"jpeg", "heif", "gif"})
+    public String outputFormat;
+
+    @Param({"sha256", "md5"})
+    public String digest;
+
+    public String mimeType = "image/heic";
+
+    @Benchmark
+    public void parseOptions(final Blackhole blackhole)
+    {
+        final OutputFormat format = OutputFormat.fromOption(outputFormat);
+        blackhole.consume(format);
+        blackhole.consume(format != null && format.matches(mimeType));
+        blackhole.consume(ContentDigest.getAlgorithm(digest));
+    }
+}
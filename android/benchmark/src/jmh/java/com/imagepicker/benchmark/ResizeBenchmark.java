@@ -0,0 +1,65 @@
+package com.imagepicker.benchmark;
+
+import com.imagepicker.utils.ResizeUtils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Size math getResizedImage runs before every decode: the target size, the sample size,
+ * the memory estimate and, for region decoding, the strip height.
+ *
+ * ImageConfig.useOriginal needs React Native to load, its check is the same comparisons
+ * of the source size against maxWidth/maxHeight as the target size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ResizeBenchmark
+{
+    private static final long STRIP_BUDGET = 16 * 1024 * 1024;
+
+    @Param({SampleJpeg.VGA, SampleJpeg.MP_12, SampleJpeg.MP_48})
+    public String size;
+
+    @Param({"512", "2048"})
+    public int maxSize;
+
+    private int width;
+    private int height;
+
+    @Setup
+    public void setUp()
+    {
+        final int[] dimensions = SampleJpeg.parseSize(size);
+        width = dimensions[0];
+        height = dimensions[1];
+    }
+
+    @Benchmark
+    public long resizeMath()
+    {
+        final int[] targetSize = ResizeUtils.calculateTargetSize(width, height, maxSize, maxSize);
+        final int inSampleSize = ResizeUtils.calculateInSampleSize(width, height, targetSize[0], targetSize[1]);
+        final long decodeMemory = ResizeUtils.estimateDecodeMemory(width, height, targetSize[0], targetSize[1]);
+        final int stripHeight = ResizeUtils.calculateStripHeight(width, height, inSampleSize, STRIP_BUDGET);
+        return decodeMemory ^ ((long) stripHeight << 32 | inSampleSize);
+    }
+
+    @Benchmark
+    public int[] sizeForFileSize()
+    {
+        // a too big encode of the target size, as in encodeImageToMaxSize
+        final int[] targetSize = ResizeUtils.calculateTargetSize(width, height, maxSize, maxSize);
+        return ResizeUtils.calculateSizeForFileSize(targetSize[0], targetSize[1],
+                (long) targetSize[0] * targetSize[1], (long) targetSize[0] * targetSize[1] / 4);
+    }
+}
@@ -0,0 +1,140 @@
+package com.imagepicker.benchmark;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Camera-like JPEG: encoded by ImageIO, with an Exif APP1 segment (orientation, DateTime, GPS)
+ * and a padding APP2 segment standing in for an embedded thumbnail or ICC profile.
+ *
+ * The benchmarks run over the same corpus of sizes, given as "WIDTHxHEIGHT": VGA, 12MP and 48MP.
+ */
+class SampleJpeg
+{
+    static final String VGA = "640x480";
+    static final String MP_12 = "4032x3024";
+    static final String MP_48 = "8000x6000";
+
+    private static final Charset US_ASCII = Charset.forName("US-ASCII");
+
+    /**
+     * @param size "WIDTHxHEIGHT"
+     * @return {width, height}
+     */
+    static int[] parseSize(final String size)
+    {
+        final int separator = size.indexOf('x');
+        return new int[] {
+                Integer.parseInt(size.substring(0, separator)),
+                Integer.parseInt(size.substring(separator + 1))
+        };
+    }
+
+    static byte[] create(final String size,
+                         final int paddingSize) throws IOException
+    {
+        final int[] dimensions = parseSize(size);
+        return create(dimensions[0], dimensions[1], paddingSize);
+    }
+
+    static byte[] create(final int width,
+                         final int height,
+                         final int paddingSize) throws IOException
+    {
+        final BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < height; y += 8)
+        {
+            for (int x = 0; x < width; x += 8)
+            {
+                image.setRGB(x, y, (x * 31 + y * 17) & 0xFFFFFF);
+            }
+        }
+        final ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpeg", encoded);
+        final byte[] jpeg = encoded.toByteArray();
+
+        // the JFIF APP0 segment has to stay right after SOI
+        final int app0End = 4 + (((jpeg[4] & 0xFF) << 8) | (jpeg[5] & 0xFF));
+        final ByteArrayOutputStream output = new ByteArrayOutputStream(jpeg.length + paddingSize + 256);
+        output.write(jpeg, 0, app0End);
+        writeSegment(output, 0xE1, exif());
+        writeSegment(output, 0xE2, new byte[paddingSize]);
+        output.write(jpeg, app0End, jpeg.length - app0End);
+        return output.toByteArray();
+    }
+
+    private static void writeSegment(final ByteArrayOutputStream output,
+                                     final int marker,
+                                     final byte[] payload)
+    {
+        output.write(0xFF);
+        output.write(marker);
+        writeShort(output, payload.length + 2);
+        output.write(payload, 0, payload.length);
+    }
+
+    /**
+     * Big endian TIFF: IFD0 with orientation, DateTime and the GPS pointer, then the GPS IFD
+     */
+    private static byte[] exif() throws IOException
+    {
+        final ByteArrayOutputStream tiff = new ByteArrayOutputStream();
+        tiff.write('M');
+        tiff.write('M');
+        writeShort(tiff, 42);
+        writeInt(tiff, 8);
+
+        writeShort(tiff, 3);
+        writeEntry(tiff, 0x0112, 3, 1, 6 << 16);
+        writeEntry(tiff, 0x0132, 2, 20, 50);
+        writeEntry(tiff, 0x8825, 4, 1, 70);
+        writeInt(tiff, 0);
+        tiff.write("2019:06:24 15:04:47\0".getBytes(US_ASCII));
+
+        writeShort(tiff, 4);
+        writeEntry(tiff, 0x0001, 2, 2, 'N' << 24);
+        writeEntry(tiff, 0x0002, 5, 3, 124);
+        writeEntry(tiff, 0x0003, 2, 2, 'W' << 24);
+        writeEntry(tiff, 0x0004, 5, 3, 148);
+        writeInt(tiff, 0);
+        for (long value : new long[] {52, 1, 30, 1, 0, 1, 13, 1, 24, 1, 0, 1})
+        {
+            writeInt(tiff, value);
+        }
+
+        final ByteArrayOutputStream exif = new ByteArrayOutputStream();
+        exif.write("Exif\0\0".getBytes(US_ASCII));
+        tiff.writeTo(exif);
+        return exif.toByteArray();
+    }
+
+    private static void writeEntry(final ByteArrayOutputStream output,
+                                   final int tag,
+                                   final int type,
+                                   final long count,
+                                   final long value)
+    {
+        writeShort(output, tag);
+        writeShort(output, type);
+        writeInt(output, count);
+        writeInt(output, value);
+    }
+
+    private static void writeShort(final ByteArrayOutputStream output,
+                                   final int value)
+    {
+        output.write(value >> 8);
+        output.write(value);
+    }
+
+    private static void writeInt(final ByteArrayOutputStream output,
+                                 final long value)
+    {
+        writeShort(output, (int) (value >> 16));
+        writeShort(output, (int) value);
+    }
+}
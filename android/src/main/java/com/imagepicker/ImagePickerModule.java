@@ -3,50 +3,79 @@ package com.imagepicker;
 import android.Manifest;
 import android.app.Activity;
 import android.content.ActivityNotFoundException;
+import android.content.ClipData;
 import android.content.Context;
 import android.content.DialogInterface;
 import android.content.Intent;
 import android.content.pm.ResolveInfo;
-import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
+import android.media.MediaMetadataRetriever;
 import android.net.Uri;
 import android.os.Build;
+import android.os.CancellationSignal;
+import android.os.OperationCanceledException;
 import android.provider.MediaStore;
 import android.provider.Settings;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.annotation.StyleRes;
+import androidx.annotation.WorkerThread;
 import androidx.core.app.ActivityCompat;
 import androidx.appcompat.app.AlertDialog;
 
 import android.util.Base64;
 import android.content.pm.PackageManager;
 import android.util.Base64OutputStream;
+import android.webkit.MimeTypeMap;
 
 import com.facebook.react.ReactActivity;
 import com.facebook.react.bridge.ActivityEventListener;
+import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.Callback;
+import com.facebook.react.bridge.Promise;
 import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReactContextBaseJavaModule;
 import com.facebook.react.bridge.ReactMethod;
 import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
 import com.facebook.react.module.annotations.ReactModule;
+import com.imagepicker.media.EncodedImage;
 import com.imagepicker.media.ImageConfig;
+import com.imagepicker.media.ImageEncoder;
+import com.imagepicker.media.ImageMetadata;
+import com.imagepicker.media.OutputVariant;
+import com.imagepicker.media.VideoConfig;
+import com.imagepicker.media.VideoMetadata;
 import com.imagepicker.permissions.PermissionUtils;
 import com.imagepicker.permissions.OnImagePickerPermissionsCallback;
-import com.imagepicker.utils.MediaUtils.ReadExifResult;
+import com.imagepicker.utils.BitmapPool;
+import com.imagepicker.utils.BitmapReuseException;
+import com.imagepicker.utils.ContentDigest;
+import com.imagepicker.utils.DataStreamer;
+import com.imagepicker.utils.ImageInputSession;
+import com.imagepicker.utils.MemoryBudget;
+import com.imagepicker.utils.ProcessingExecutor;
 import com.imagepicker.utils.ReadableMapUtils;
 import com.imagepicker.utils.RealPathUtil;
+import com.imagepicker.utils.ResultCache;
+import com.imagepicker.utils.TempFileManager;
 import com.imagepicker.utils.UI;
 
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.UnsupportedEncodingException;
 import java.lang.ref.WeakReference;
+import java.security.DigestInputStream;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.facebook.react.modules.core.PermissionListener;
 import com.facebook.react.modules.core.PermissionAwareActivity;
@@ -70,26 +99,57 @@ public class ImagePickerModule extends ReactContextBaseJavaModule
   public static final int REQUEST_PERMISSIONS_FOR_CAMERA  = 14001;
   public static final int REQUEST_PERMISSIONS_FOR_LIBRARY = 14002;
 
-  private final ReactApplicationContext reactContext;
-  private final int dialogThemeId;
-
-  protected Callback callback;
-  private Callback permissionRequestCallback;
-
-  private ReadableMap options;
-  protected Uri cameraCaptureURI;
-  private Boolean noData = false;
-  private Boolean pickVideo = false;
-  private Boolean pickBoth = false;
-  private ImageConfig imageConfig = new ImageConfig(0, 0, 100, 0, false);
+  public static final String OUTPUT_MODE_DATA = "data";
+  public static final String OUTPUT_MODE_FILE = "file";
+  public static final String OUTPUT_MODE_STREAM = "stream";
 
-  @Deprecated
-  private int videoQuality = 1;
+  /**
+   * Values of the copyTo option, the cache directory is cleaned up while the files directory is kept
+   */
+  public static final String COPY_TO_CACHES = "cachesDirectory";
+  public static final String COPY_TO_DOCUMENTS = "documentDirectory";
 
-  @Deprecated
-  private int videoDurationLimit = 0;
+  public static final String E_JOB_EXISTS = "E_JOB_EXISTS";
+  public static final String E_PICKER_FAILED = "E_PICKER_FAILED";
+  public static final String E_CLEANUP_FAILED = "E_CLEANUP_FAILED";
 
-  private ResponseHelper responseHelper = new ResponseHelper();
+  private final ReactApplicationContext reactContext;
+  private final int dialogThemeId;
+  private final ExecutorService processingExecutor;
+  private final boolean ownsProcessingExecutor;
+  private final BitmapPool bitmapPool = new BitmapPool(BitmapPool.DEFAULT_MAX_BYTES);
+  /**
+   * Holds nothing, for decoding again after {@link BitmapReuseException}
+   */
+  private final BitmapPool nonReusingBitmapPool = new BitmapPool(0);
+  private final MemoryBudget decodeMemoryBudget = MemoryBudget.fromHeap();
+  private final DataStreamer dataStreamer;
+  /**
+   * Created on first use, see {@link #getTempFileManager()}
+   */
+  private @Nullable TempFileManager tempFileManager;
+  /**
+   * Created on first use, see {@link #getResultCache()}
+   */
+  private @Nullable ResultCache resultCache;
+  /**
+   * Runs the cleanups of {@link #tempFileManager}, away from the processing of picked images
+   */
+  private final ExecutorService cleanupExecutor = ProcessingExecutor.newFixed(1);
+  private final AtomicInteger nextRequestId = new AtomicInteger();
+
+  /**
+   * Every session which hasn't invoked its callback yet, keyed by its id
+   */
+  private final ConcurrentHashMap<String, PickerSession> sessions = new ConcurrentHashMap<>();
+
+  /**
+   * Sessions waiting for an activity or permission result, keyed by the request code.
+   * Only one activity can be in front, so a new launch of the same kind replaces the stale session.
+   */
+  private final ConcurrentHashMap<Integer, PickerSession> pendingSessions = new ConcurrentHashMap<>();
+
+  private final ResponseHelper responseHelper = new ResponseHelper();
   private PermissionListener listener = new PermissionListener()
   {
     public boolean onRequestPermissionsResult(final int requestCode,
@@ -103,25 +163,26 @@ public class ImagePickerModule extends ReactContextBaseJavaModule
         permissionsGranted = permissionsGranted && granted;
       }
 
-      if (callback == null || options == null)
+      final PickerSession session = pendingSessions.remove(requestCode);
+      if (session == null)
       {
         return false;
       }
 
       if (!permissionsGranted)
       {
-        responseHelper.invokeError(permissionRequestCallback, "Permissions weren't granted");
+        finishWithError(session, "Permissions weren't granted");
         return false;
       }
 
       switch (requestCode)
       {
         case REQUEST_PERMISSIONS_FOR_CAMERA:
-          launchCamera(options, permissionRequestCallback);
+          launchCamera(session);
           break;
 
         case REQUEST_PERMISSIONS_FOR_LIBRARY:
-          launchImageLibrary(options, permissionRequestCallback);
+          launchImageLibrary(session);
           break;
 
       }
@@ -136,12 +197,144 @@ public class ImagePickerModule extends ReactContextBaseJavaModule
 
   public ImagePickerModule(ReactApplicationContext reactContext,
                            @StyleRes final int dialogThemeId)
+  {
+    this(reactContext, dialogThemeId, null);
+  }
+
+  public ImagePickerModule(ReactApplicationContext reactContext,
+                           @StyleRes final int dialogThemeId,
+                           @Nullable final ExecutorService processingExecutor)
+  {
+    this(reactContext, dialogThemeId, processingExecutor, null, null);
+  }
+
+  /**
+   * Nothing is read from or written to disk here, the first cleanup runs once a pick has finished
+   *
+   * @param tempFileManager null to create one for the app's directories on first use
+   * @param resultCache null to create one in the app's cache directory on first use
+   */
+  public ImagePickerModule(ReactApplicationContext reactContext,
+                           @StyleRes final int dialogThemeId,
+                           @Nullable final ExecutorService processingExecutor,
+                           @Nullable final TempFileManager tempFileManager,
+                           @Nullable final ResultCache resultCache)
   {
     super(reactContext);
 
     this.dialogThemeId = dialogThemeId;
     this.reactContext = reactContext;
     this.reactContext.addActivityEventListener(this);
+    this.dataStreamer = new DataStreamer(reactContext);
+    this.ownsProcessingExecutor = processingExecutor == null;
+    this.processingExecutor = processingExecutor != null
+            ? processingExecutor
+            : ProcessingExecutor.newDefault();
+    this.tempFileManager = tempFileManager;
+    this.resultCache = resultCache;
+  }
+
+  @Override
+  public void onCatalystInstanceDestroy()
+  {
+    super.onCatalystInstanceDestroy();
+    if (ownsProcessingExecutor)
+    {
+      processingExecutor.shutdown();
+    }
+    cleanupExecutor.shutdown();
+    dataStreamer.shutdown();
+    pendingSessions.clear();
+    sessions.clear();
+    bitmapPool.clear();
+  }
+
+  /**
+   * Lets the next data chunk of the request be sent, see {@link DataStreamer}
+   */
+  @ReactMethod
+  public void acknowledgeDataChunk(final String requestId)
+  {
+    dataStreamer.acknowledge(requestId);
+  }
+
+  /**
+   * Deletes all photos the picker has captured or written, also the ones of the latest results.
+   * The promise is resolved with the number of deleted files and the bytes they took.
+   */
+  @ReactMethod
+  public void cleanupTempFiles(final Promise promise)
+  {
+    try
+    {
+      cleanupExecutor.execute(new Runnable()
+      {
+        @Override
+        public void run()
+        {
+          final TempFileManager.Result result = getTempFileManager().deleteAll();
+          final WritableMap response = Arguments.createMap();
+          response.putInt("deletedFiles", result.deletedFiles);
+          response.putDouble("freedBytes", result.freedBytes);
+          promise.resolve(response);
+        }
+      });
+    }
+    catch (RejectedExecutionException e)
+    {
+      promise.reject(E_CLEANUP_FAILED, e);
+    }
+  }
+
+  /**
+   * Evicts old files beyond the quota of {@link TempFileManager}
+   */
+  private void trimTempFilesInBackground()
+  {
+    try
+    {
+      cleanupExecutor.execute(new Runnable()
+      {
+        @Override
+        public void run()
+        {
+          getTempFileManager().trim(System.currentTimeMillis());
+        }
+      });
+    }
+    catch (RejectedExecutionException e)
+    {
+      // the module is being destroyed, the next one cleans up
+    }
+  }
+
+  private synchronized @NonNull TempFileManager getTempFileManager()
+  {
+    if (tempFileManager == null)
+    {
+      tempFileManager = TempFileManager.forContext(reactContext);
+    }
+    return tempFileManager;
+  }
+
+  private synchronized @NonNull ResultCache getResultCache()
+  {
+    if (resultCache == null)
+    {
+      resultCache = ResultCache.forContext(reactContext);
+    }
+    return resultCache;
+  }
+
+  @ReactMethod
+  public void getBitmapPoolStats(final Callback callback)
+  {
+    final WritableMap stats = Arguments.createMap();
+    stats.putDouble("hits", bitmapPool.getHits());
+    stats.putDouble("misses", bitmapPool.getMisses());
+    stats.putDouble("size", bitmapPool.getSize());
+    stats.putDouble("maxSize", bitmapPool.getMaxSize());
+    callback.invoke(stats);
   }
 
   @Override
@@ -159,9 +352,7 @@ public class ImagePickerModule extends ReactContextBaseJavaModule
       return;
     }
 
-    this.callback = callback;
-    this.options = options;
-    imageConfig = new ImageConfig(0, 0, 100, 0, false);
+    final PickerSession session = startSession(options, callback);
 
     final AlertDialog dialog = UI.chooseDialog(this, options, new UI.OnAction()
     {
@@ -172,7 +363,7 @@ public class ImagePickerModule extends ReactContextBaseJavaModule
         {
           return;
         }
-        module.launchCamera();
+        module.launchCamera(session);
       }
 
       @Override
@@ -182,7 +373,7 @@ public class ImagePickerModule extends ReactContextBaseJavaModule
         {
           return;
         }
-        module.launchImageLibrary();
+        module.launchImageLibrary(session);
       }
 
       @Override
@@ -192,7 +383,7 @@ public class ImagePickerModule extends ReactContextBaseJavaModule
         {
           return;
         }
-        module.doOnCancel();
+        module.doOnCancel(session);
       }
 
       @Override
@@ -203,65 +394,74 @@ public class ImagePickerModule extends ReactContextBaseJavaModule
         {
           return;
         }
-        module.invokeCustomButton(action);
+        module.invokeCustomButton(session, action);
       }
     });
     dialog.show();
   }
 
-  public void doOnCancel()
+  public void doOnCancel(@NonNull final PickerSession session)
   {
-    if (callback != null) {
-      responseHelper.invokeCancel(callback);
-      callback = null;
+    if (sessions.remove(session.id) != null)
+    {
+      session.responseHelper.invokeCancel(session.callback);
+      trimTempFilesInBackground();
     }
   }
 
-  public void launchCamera()
+  @ReactMethod
+  public void launchCamera(final ReadableMap options, final Callback callback)
   {
-    this.launchCamera(this.options, this.callback);
+    launchCamera(startSession(options, callback));
   }
 
-  // NOTE: Currently not reentrant / doesn't support concurrent requests
+  /**
+   * Like {@link #launchCamera(ReadableMap, Callback)}, the promise is resolved with the response,
+   * or rejected with {@link #E_PICKER_FAILED} and its error. The job can be cancelled through {@link #cancel(String)} until then.
+   */
   @ReactMethod
-  public void launchCamera(final ReadableMap options, final Callback callback)
+  public void launchCameraAsync(final String jobId, final ReadableMap options, final Promise promise)
   {
-    permissionRequestCallback = callback;
+    final PickerSession session = startSession(jobId, options, new PromiseCallback(promise));
+    if (session == null)
+    {
+      promise.reject(E_JOB_EXISTS, "Job " + jobId + " is already running");
+      return;
+    }
+    launchCamera(session);
+  }
 
+  public void launchCamera(@NonNull final PickerSession session)
+  {
     if (!isCameraAvailable())
     {
-      responseHelper.invokeError(callback, "Camera not available");
+      finishWithError(session, "Camera not available");
       return;
     }
 
     final Activity currentActivity = getCurrentActivity();
     if (currentActivity == null)
     {
-      responseHelper.invokeError(callback, "can't find current Activity");
+      finishWithError(session, "can't find current Activity");
       return;
     }
 
-    this.callback = callback;
-    this.options = options;
-
-    if (!permissionsCheck(currentActivity, callback, REQUEST_PERMISSIONS_FOR_CAMERA))
+    if (!permissionsCheck(currentActivity, session, REQUEST_PERMISSIONS_FOR_CAMERA))
     {
       return;
     }
 
-    parseOptions(this.options);
-
     int requestCode;
     Intent cameraIntent;
 
-    if (pickVideo)
+    if (session.pickVideo)
     {
       requestCode = REQUEST_LAUNCH_VIDEO_CAPTURE;
       cameraIntent = new Intent(MediaStore.ACTION_VIDEO_CAPTURE);
-      cameraIntent.putExtra(MediaStore.EXTRA_VIDEO_QUALITY, videoQuality);
-      if (videoDurationLimit > 0)
+      cameraIntent.putExtra(MediaStore.EXTRA_VIDEO_QUALITY, session.videoQuality);
+      if (session.videoDurationLimit > 0)
       {
-        cameraIntent.putExtra(MediaStore.EXTRA_DURATION_LIMIT, videoDurationLimit);
+        cameraIntent.putExtra(MediaStore.EXTRA_DURATION_LIMIT, session.videoDurationLimit);
       }
     }
     else
@@ -269,25 +469,31 @@ public class ImagePickerModule extends ReactContextBaseJavaModule
       requestCode = REQUEST_LAUNCH_IMAGE_CAPTURE;
       cameraIntent = new Intent(MediaStore.ACTION_IMAGE_CAPTURE);
 
-      final File original = createNewFile(reactContext, this.options, false);
+      final File original = createNewFile(reactContext, session.options, false);
 
       if (original != null) {
-        cameraCaptureURI = RealPathUtil.compatUriFromFile(reactContext, original);
+        if (!ReadableMapUtils.hasAndNotNullReadableMap(session.options, "storageOptions")
+                || !ReadableMapUtils.hasAndNotEmptyString(session.options.getMap("storageOptions"), "path"))
+        {
+          // a capture in storageOptions.path is kept for the app
+          getTempFileManager().track(original);
+        }
+        session.setCameraCaptureUri(RealPathUtil.compatUriFromFile(reactContext, original));
       }else {
-        responseHelper.invokeError(callback, "Couldn't get file path for photo");
+        finishWithError(session, "Couldn't get file path for photo");
         return;
       }
-      if (cameraCaptureURI == null)
+      if (session.getCameraCaptureUri() == null)
       {
-        responseHelper.invokeError(callback, "Couldn't get file path for photo");
+        finishWithError(session, "Couldn't get file path for photo");
         return;
       }
-      cameraIntent.putExtra(MediaStore.EXTRA_OUTPUT, cameraCaptureURI);
+      cameraIntent.putExtra(MediaStore.EXTRA_OUTPUT, session.getCameraCaptureUri());
     }
 
     if (cameraIntent.resolveActivity(reactContext.getPackageManager()) == null)
     {
-      responseHelper.invokeError(callback, "Cannot launch camera");
+      finishWithError(session, "Cannot launch camera");
       return;
     }
 
@@ -298,10 +504,11 @@ public class ImagePickerModule extends ReactContextBaseJavaModule
       List<ResolveInfo> resInfoList = reactContext.getPackageManager().queryIntentActivities(cameraIntent, PackageManager.MATCH_DEFAULT_ONLY);
       for (ResolveInfo resolveInfo : resInfoList) {
         String packageName = resolveInfo.activityInfo.packageName;
-        reactContext.grantUriPermission(packageName, cameraCaptureURI, Intent.FLAG_GRANT_WRITE_URI_PERMISSION | Intent.FLAG_GRANT_READ_URI_PERMISSION);
+        reactContext.grantUriPermission(packageName, session.getCameraCaptureUri(), Intent.FLAG_GRANT_WRITE_URI_PERMISSION | Intent.FLAG_GRANT_READ_URI_PERMISSION);
       }
     }
 
+    addPendingSession(requestCode, session);
     try
     {
       currentActivity.startActivityForResult(cameraIntent, requestCode);
@@ -309,39 +516,68 @@ public class ImagePickerModule extends ReactContextBaseJavaModule
     catch (ActivityNotFoundException e)
     {
       e.printStackTrace();
-      responseHelper.invokeError(callback, "Cannot launch camera");
+      pendingSessions.remove(requestCode, session);
+      finishWithError(session, "Cannot launch camera");
     }
   }
 
-  public void launchImageLibrary()
+  @ReactMethod
+  public void launchImageLibrary(final ReadableMap options, final Callback callback)
   {
-    this.launchImageLibrary(this.options, this.callback);
+    launchImageLibrary(startSession(options, callback));
   }
-  // NOTE: Currently not reentrant / doesn't support concurrent requests
+
+  /**
+   * Like {@link #launchImageLibrary(ReadableMap, Callback)}, the promise is resolved with the response.
+   * The job can be cancelled through {@link #cancel(String)} until then.
+   */
   @ReactMethod
-  public void launchImageLibrary(final ReadableMap options, final Callback callback)
+  public void launchImageLibraryAsync(final String jobId, final ReadableMap options, final Promise promise)
+  {
+    final PickerSession session = startSession(jobId, options, new PromiseCallback(promise));
+    if (session == null)
+    {
+      promise.reject(E_JOB_EXISTS, "Job " + jobId + " is already running");
+      return;
+    }
+    launchImageLibrary(session);
+  }
+
+  /**
+   * Responds to the job with didCancel right away. Its processing stops at the next
+   * decode, strip or encode boundary and everything it holds is released.
+   * Once the job has responded, a running stream of its data is ended instead.
+   */
+  @ReactMethod
+  public void cancel(final String jobId)
   {
-    permissionRequestCallback = callback;
+    final PickerSession session = sessions.get(jobId);
+    if (session == null)
+    {
+      dataStreamer.cancel(jobId);
+      return;
+    }
+    session.cancellationSignal.cancel();
+    pendingSessions.values().remove(session);
+    doOnCancel(session);
+  }
 
+  public void launchImageLibrary(@NonNull final PickerSession session)
+  {
     final Activity currentActivity = getCurrentActivity();
     if (currentActivity == null) {
-      responseHelper.invokeError(callback, "can't find current Activity");
+      finishWithError(session, "can't find current Activity");
       return;
     }
 
-    this.callback = callback;
-    this.options = options;
-
-    if (!permissionsCheck(currentActivity, callback, REQUEST_PERMISSIONS_FOR_LIBRARY))
+    if (!permissionsCheck(currentActivity, session, REQUEST_PERMISSIONS_FOR_LIBRARY))
     {
       return;
     }
 
-    parseOptions(this.options);
-
     int requestCode;
     Intent libraryIntent;
-    if (pickVideo)
+    if (session.pickVideo)
     {
       requestCode = REQUEST_LAUNCH_VIDEO_LIBRARY;
       libraryIntent = new Intent(Intent.ACTION_GET_CONTENT);
@@ -355,8 +591,12 @@ public class ImagePickerModule extends ReactContextBaseJavaModule
       libraryIntent = new Intent(Intent.ACTION_GET_CONTENT);
       libraryIntent.putExtra(Intent.EXTRA_LOCAL_ONLY, true);
       libraryIntent.putExtra(Intent.CATEGORY_OPENABLE, true);
+      if (session.multiple)
+      {
+        libraryIntent.putExtra(Intent.EXTRA_ALLOW_MULTIPLE, true);
+      }
 
-      if (pickBoth)
+      if (session.pickBoth)
       {
         libraryIntent.setType("image/* video/*");
       } else {
@@ -366,16 +606,17 @@ public class ImagePickerModule extends ReactContextBaseJavaModule
 
     if (libraryIntent.resolveActivity(reactContext.getPackageManager()) == null)
     {
-      responseHelper.invokeError(callback, "Cannot launch photo library");
+      finishWithError(session, "Cannot launch photo library");
       return;
     }
 
+    addPendingSession(requestCode, session);
     try
     {
       String chooseWhichLibraryTitle = null;
-      if (ReadableMapUtils.hasAndNotEmptyString(options, "chooseWhichLibraryTitle"))
+      if (ReadableMapUtils.hasAndNotEmptyString(session.options, "chooseWhichLibraryTitle"))
       {
-        chooseWhichLibraryTitle = options.getString("chooseWhichLibraryTitle");
+        chooseWhichLibraryTitle = session.options.getString("chooseWhichLibraryTitle");
       }
 
       currentActivity.startActivityForResult(Intent.createChooser(libraryIntent, chooseWhichLibraryTitle), requestCode);
@@ -383,25 +624,28 @@ public class ImagePickerModule extends ReactContextBaseJavaModule
     catch (ActivityNotFoundException e)
     {
       e.printStackTrace();
-      responseHelper.invokeError(callback, "Cannot launch photo library");
+      pendingSessions.remove(requestCode, session);
+      finishWithError(session, "Cannot launch photo library");
     }
   }
 
   @Override
   public void onActivityResult(Activity activity, int requestCode, int resultCode, Intent data) {
     //robustness code
-    if (passResult(requestCode))
+    if (!isLaunchRequest(requestCode))
+    {
+      return;
+    }
+    final PickerSession session = pendingSessions.remove(requestCode);
+    if (session == null || (requestCode == REQUEST_LAUNCH_IMAGE_CAPTURE && session.getCameraCaptureUri() == null))
     {
       return;
     }
-
-    responseHelper.cleanResponse();
 
     // user cancel
     if (resultCode != Activity.RESULT_OK)
     {
-      responseHelper.invokeCancel(callback);
-      callback = null;
+      doOnCancel(session);
       return;
     }
 
@@ -409,131 +653,914 @@ public class ImagePickerModule extends ReactContextBaseJavaModule
     switch (requestCode)
     {
       case REQUEST_LAUNCH_IMAGE_CAPTURE:
-        uri = cameraCaptureURI;
+        uri = session.getCameraCaptureUri();
         break;
 
       case REQUEST_LAUNCH_IMAGE_LIBRARY:
+        if (session.multiple)
+        {
+          processSelection(session, getSelectedUris(data));
+          return;
+        }
         uri = data.getData();
           if(uri == null){
-            responseHelper.putString("error", "Could not read photo");
-            responseHelper.invokeResponse(callback);
-            callback = null;
+            finishWithError(session, "Could not read photo");
             return;
           }
         break;
 
       case REQUEST_LAUNCH_VIDEO_LIBRARY:
-        responseHelper.putString("uri", data.getData().toString());
-        responseHelper.invokeResponse(callback);
-        callback = null;
-        return;
-
       case REQUEST_LAUNCH_VIDEO_CAPTURE:
-        responseHelper.putString("uri", data.getData().toString());
-        responseHelper.invokeResponse(callback);
-        callback = null;
+        if (data == null || data.getData() == null)
+        {
+          finishWithError(session, "Could not read video");
+          return;
+        }
+        processVideoInBackground(session, data.getData());
         return;
     }
 
-    ReadExifResult result = null;
-    try {
-      InputStream imageInputStream = reactContext.getContentResolver().openInputStream(uri);
-      if(imageInputStream != null){
-        result = readExifInterface(imageInputStream, responseHelper);
+    final Uri imageUri = uri;
+    try
+    {
+      processingExecutor.execute(new Runnable()
+      {
+        @Override
+        public void run()
+        {
+          if (session.cancellationSignal.isCanceled())
+          {
+            return;
+          }
+          try
+          {
+            processImage(session, imageUri);
+          }
+          catch (OperationCanceledException e)
+          {
+            // the cancellation has been already reported
+          }
+          catch (RuntimeException | OutOfMemoryError e)
+          {
+            e.printStackTrace();
+            finishWithError(session, "Image could not be processed");
+          }
+        }
+      });
+    }
+    catch (RejectedExecutionException e)
+    {
+      finishWithError(session, "Image could not be processed");
+    }
+  }
+
+  private void processVideoInBackground(@NonNull final PickerSession session,
+                                        @NonNull final Uri videoUri)
+  {
+    try
+    {
+      processingExecutor.execute(new Runnable()
+      {
+        @Override
+        public void run()
+        {
+          if (session.cancellationSignal.isCanceled())
+          {
+            return;
+          }
+          try
+          {
+            copyOriginal(videoUri, null, session.copyTo, session.responseHelper, session.cancellationSignal);
+            processVideo(videoUri, session.videoConfig, getUnstreamedOutputMode(session.getImageOutputMode()),
+                    session.responseHelper, session.cancellationSignal);
+            finish(session);
+          }
+          catch (OperationCanceledException e)
+          {
+            // the cancellation has been already reported
+          }
+          catch (RuntimeException | OutOfMemoryError e)
+          {
+            e.printStackTrace();
+            finishWithError(session, "Video could not be processed");
+          }
+        }
+      });
+    }
+    catch (RejectedExecutionException e)
+    {
+      finishWithError(session, "Video could not be processed");
+    }
+  }
+
+  /**
+   * Registers a session for a new picker call
+   */
+  protected @NonNull PickerSession startSession(@NonNull final ReadableMap options,
+                                                @NonNull final Callback callback)
+  {
+    final PickerSession session = new PickerSession(
+            String.valueOf(nextRequestId.incrementAndGet()), options, callback);
+    sessions.put(session.id, session);
+    return session;
+  }
+
+  /**
+   * @return the session registered under the id chosen by JS, or null if the id is in use
+   */
+  protected @Nullable PickerSession startSession(@NonNull final String id,
+                                                 @NonNull final ReadableMap options,
+                                                 @NonNull final Callback callback)
+  {
+    final PickerSession session = new PickerSession(id, options, callback);
+    return sessions.putIfAbsent(id, session) == null
+            ? session
+            : null;
+  }
+
+  /**
+   * Makes the session receive the result of requestCode. A stale session waiting for the same result is cancelled.
+   */
+  protected void addPendingSession(final int requestCode,
+                                   @NonNull final PickerSession session)
+  {
+    final PickerSession stale = pendingSessions.put(requestCode, session);
+    if (stale != null && stale != session)
+    {
+      doOnCancel(stale);
+    }
+  }
+
+  /**
+   * Invokes the session callback with its response, at most once
+   */
+  private void finish(@NonNull final PickerSession session)
+  {
+    if (sessions.remove(session.id) != null)
+    {
+      session.responseHelper.invokeResponse(session.callback);
+      trimTempFilesInBackground();
+    }
+  }
+
+  private void finishWithError(@NonNull final PickerSession session,
+                               @NonNull final String error)
+  {
+    session.responseHelper.putError(error);
+    finish(session);
+  }
+
+  private static @NonNull List<Uri> getSelectedUris(@Nullable final Intent data)
+  {
+    final List<Uri> uris = new ArrayList<>();
+    if (data == null)
+    {
+      return uris;
+    }
+    final ClipData clipData = data.getClipData();
+    if (clipData != null)
+    {
+      for (int i = 0; i < clipData.getItemCount(); i++)
+      {
+        final Uri uri = clipData.getItemAt(i).getUri();
+        if (uri != null)
+        {
+          uris.add(uri);
+        }
       }
-    } catch(IOException ex){
-      responseHelper.invokeError(callback, ex.getMessage());
-      callback = null;
-      return;
     }
-    if (result == null) {
-      responseHelper.invokeError(callback, "Image could not be read");
-      callback = null;
-      return;
+    else if (data.getData() != null)
+    {
+      uris.add(data.getData());
     }
-    if (result.error != null)
+    return uris;
+  }
+
+  /**
+   * Processes every selected item on {@link #processingExecutor} and invokes the callback once,
+   * with the results in selection order. How many items are decoded at the same time is bounded
+   * by {@link #decodeMemoryBudget}.
+   */
+  private void processSelection(@NonNull final PickerSession session,
+                                @NonNull final List<Uri> uris)
+  {
+    final ImageConfig imageConfig = session.imageConfig;
+    // every item can't be streamed through one callback, stream falls back to files
+    final String outputMode = getUnstreamedOutputMode(session.getImageOutputMode());
+
+    if (uris.isEmpty())
     {
-      responseHelper.invokeError(callback, result.error.getMessage());
-      callback = null;
+      finishWithError(session, "Could not read photo");
       return;
     }
 
-    BitmapFactory.Options options = new BitmapFactory.Options();
-    options.inJustDecodeBounds = true;
-    Bitmap imageBitmap = null;
-    try {
-      InputStream imageInputStream = reactContext.getContentResolver().openInputStream(uri);
-      imageBitmap = BitmapFactory.decodeStream(imageInputStream, null, options);
-    } catch(FileNotFoundException ex){
-      responseHelper.invokeError(callback, "Could not find file");
-      callback = null;
-      return;
+    final Selection selection = new Selection(uris.size());
+    for (int i = 0; i < uris.size(); i++)
+    {
+      final int index = i;
+      final Uri uri = uris.get(i);
+      try
+      {
+        processingExecutor.execute(new Runnable()
+        {
+          @Override
+          public void run()
+          {
+            completeSelectionItem(session, selection, index,
+                    processSelectedItem(uri, imageConfig, session.videoConfig, outputMode, session.copyTo,
+                            session.cancellationSignal));
+          }
+        });
+      }
+      catch (RejectedExecutionException e)
+      {
+        final ResponseHelper itemHelper = new ResponseHelper();
+        itemHelper.putError("Image could not be processed");
+        completeSelectionItem(session, selection, index, itemHelper.getResponse());
+      }
+    }
+  }
+
+  private void completeSelectionItem(@NonNull final PickerSession session,
+                                     @NonNull final Selection selection,
+                                     final int index,
+                                     @NonNull final WritableMap result)
+  {
+    final WritableArray assets = selection.complete(index, result);
+    if (assets != null)
+    {
+      session.responseHelper.putArray("assets", assets);
+      finish(session);
+    }
+  }
+
+  @WorkerThread
+  private @NonNull WritableMap processSelectedItem(@NonNull final Uri uri,
+                                                   @NonNull final ImageConfig imageConfig,
+                                                   @NonNull final VideoConfig videoConfig,
+                                                   @NonNull final String outputMode,
+                                                   @Nullable final String copyTo,
+                                                   @NonNull final CancellationSignal cancellationSignal)
+  {
+    final ResponseHelper responseHelper = new ResponseHelper();
+    if (cancellationSignal.isCanceled())
+    {
+      responseHelper.putBoolean("didCancel", true);
+      return responseHelper.getResponse();
+    }
+    final String type = reactContext.getContentResolver().getType(uri);
+    if (type != null && type.startsWith("video/"))
+    {
+      try
+      {
+        responseHelper.putString("type", type);
+        copyOriginal(uri, null, copyTo, responseHelper, cancellationSignal);
+        processVideo(uri, videoConfig, outputMode, responseHelper, cancellationSignal);
+      }
+      catch (OperationCanceledException e)
+      {
+        responseHelper.cleanResponse();
+        responseHelper.putBoolean("didCancel", true);
+      }
+      return responseHelper.getResponse();
     }
 
+    try (ImageInputSession input = ImageInputSession.open(reactContext.getContentResolver(), uri))
+    {
+      copyOriginal(uri, input, copyTo, responseHelper, cancellationSignal);
+      processImage(uri, input, imageConfig, outputMode, responseHelper, cancellationSignal);
+    }
+    catch (OperationCanceledException e)
+    {
+      responseHelper.cleanResponse();
+      responseHelper.putBoolean("didCancel", true);
+    }
+    catch (FileNotFoundException e)
+    {
+      responseHelper.putError("Could not find file");
+    }
+    catch (IOException e)
+    {
+      responseHelper.putError(e.getMessage());
+    }
+    catch (RuntimeException | OutOfMemoryError e)
+    {
+      e.printStackTrace();
+      responseHelper.putError("Image could not be processed");
+    }
+    return responseHelper.getResponse();
+  }
 
-    int initialWidth = options.outWidth;
-    int initialHeight = options.outHeight;
+  /**
+   * Collects the results of a multiple selection, whichever thread completes the last item delivers them
+   */
+  private static class Selection
+  {
+    private final WritableMap[] results;
+    private final AtomicInteger remaining;
 
+    Selection(final int count)
+    {
+      this.results = new WritableMap[count];
+      this.remaining = new AtomicInteger(count);
+    }
 
-    // don't create a new file if contraint are respected
-    if (imageConfig.useOriginal(initialWidth, initialHeight, result.currentRotation))
+    /**
+     * @return every result in selection order once the last one is completed, otherwise null
+     */
+    @Nullable WritableArray complete(final int index,
+                                     @NonNull final WritableMap result)
     {
-      responseHelper.putInt("width", initialWidth);
-      responseHelper.putInt("height", initialHeight);
+      results[index] = result;
+      if (remaining.decrementAndGet() != 0)
+      {
+        return null;
+      }
+      final WritableArray assets = Arguments.createArray();
+      for (WritableMap item : results)
+      {
+        assets.pushMap(item);
+      }
+      return assets;
+    }
+  }
 
-      try {
-        InputStream imageInputStream = reactContext.getContentResolver().openInputStream(uri);
-        updatedResultResponse(imageInputStream);
-      } catch(FileNotFoundException ex){
-        responseHelper.invokeError(callback, "Could not find file");
-        callback = null;
+  /**
+   * Reads, resizes and encodes the picked image and invokes the session callback with the result.
+   * Runs on {@link #processingExecutor}, so everything it needs comes from the session.
+   */
+  @WorkerThread
+  private void processImage(@NonNull final PickerSession session,
+                            @NonNull final Uri uri)
+  {
+    final ResponseHelper responseHelper = session.responseHelper;
+
+    ImageInputSession input = null;
+    try
+    {
+      input = ImageInputSession.open(reactContext.getContentResolver(), uri);
+      copyOriginal(uri, input, session.copyTo, responseHelper, session.cancellationSignal);
+      final InputStream dataStream = processImage(uri, input, session.imageConfig,
+              session.getImageOutputMode(), responseHelper, session.cancellationSignal);
+      if (dataStream != null)
+      {
+        responseHelper.putString("requestId", session.id);
+        responseHelper.putInt("chunkSize", session.chunkSize);
+        finish(session);
+        // the input stays open while the original is streamed, the streamer closes it at the end
+        dataStreamer.start(session.id, DataStreamer.closingAlso(dataStream, input), session.chunkSize);
+        input = null;
         return;
       }
     }
+    catch (FileNotFoundException e)
+    {
+      finishWithError(session, "Could not find file");
+      return;
+    }
+    catch (IOException e)
+    {
+      finishWithError(session, e.getMessage());
+      return;
+    }
+    finally
+    {
+      if (input != null)
+      {
+        try
+        {
+          input.close();
+        }
+        catch (IOException e)
+        {
+          e.printStackTrace();
+        }
+      }
+    }
+
+    finish(session);
+  }
+
+  /**
+   * @return stream of the image bytes which have to be sent in chunks for {@link #OUTPUT_MODE_STREAM}, otherwise null
+   */
+  @WorkerThread
+  private @Nullable InputStream processImage(@NonNull final Uri uri,
+                                             @NonNull final ImageInputSession input,
+                                             @NonNull final ImageConfig imageConfig,
+                                             @NonNull final String outputMode,
+                                             @NonNull final ResponseHelper responseHelper,
+                                             @NonNull final CancellationSignal cancellationSignal) throws IOException
+  {
+    final boolean fileOutput = OUTPUT_MODE_FILE.equals(outputMode);
+    final boolean streamOutput = OUTPUT_MODE_STREAM.equals(outputMode);
+
+    // EXIF is parsed once, the snapshot is all the later stages look at
+    final ImageMetadata metadata = input.readMetadata();
+    metadata.putInto(responseHelper);
+
+    if (!imageConfig.outputs.isEmpty())
+    {
+      // every output gets its own file, they can't be streamed through one response
+      processOutputs(uri, input, imageConfig.withRotation(metadata.rotation), metadata,
+              fileOutput || streamOutput, responseHelper, cancellationSignal);
+      return null;
+    }
+
+    // asked once, the size limit, the response and the cache key use the same value
+    final long sourceSize = getFileSize(reactContext.getContentResolver(), uri);
+
+    // don't create a new file if contraint are respected
+    if (imageConfig.useOriginal(metadata.width, metadata.height, metadata.rotation, metadata.mimeType)
+            && originalFits(sourceSize, imageConfig))
+    {
+      responseHelper.putInt("width", metadata.width);
+      responseHelper.putInt("height", metadata.height);
+      if (fileOutput || streamOutput)
+      {
+        // the original is passed through untouched, it is only read for a digest
+        responseHelper.putString("uri", uri.toString());
+        responseHelper.putDouble("fileSize", sourceSize);
+        if (metadata.mimeType != null)
+        {
+          responseHelper.putString("type", metadata.mimeType);
+        }
+        if (streamOutput)
+        {
+          // the digest would only be known once the response has been sent
+          return input.openStream();
+        }
+        if (imageConfig.digest != null)
+        {
+          putOriginalDigest(responseHelper, ContentDigest.finish(
+                  new DigestInputStream(input.openStream(), ContentDigest.create(imageConfig.digest))));
+        }
+      }
+      else
+      {
+        final InputStream stream = openDigestStream(input, imageConfig.digest);
+        updatedResultResponse(responseHelper, stream);
+        if (stream instanceof DigestInputStream)
+        {
+          putOriginalDigest(responseHelper, ContentDigest.finish((DigestInputStream) stream));
+        }
+      }
+    }
     else
     {
-      Bitmap resizedImage = null;
-      ImageConfig rotatedImageConfig = imageConfig.withRotation(result.currentRotation);
-      try {
-        InputStream imageInputStream = reactContext.getContentResolver().openInputStream(uri);
-        resizedImage = getResizedImage(imageInputStream, rotatedImageConfig, initialWidth, initialHeight);
-      } catch(FileNotFoundException ex){
-        responseHelper.invokeError(callback, "Could not find file");
-        callback = null;
-        return;
+      ImageConfig rotatedImageConfig = imageConfig.withRotation(metadata.rotation);
+      final ImageEncoder encoder = ImageEncoder.forFormat(rotatedImageConfig.getOutputFormat());
+      // streamed files are deleted once sent, only kept files can be handed out again
+      final String cacheKey = fileOutput
+              ? ResultCache.createKey(uri.toString(), getLastModified(reactContext.getContentResolver(), uri),
+                      sourceSize, rotatedImageConfig)
+              : null;
+      final ResultCache.Entry cached = cacheKey != null
+              ? acquireCachedResult(cacheKey, cancellationSignal)
+              : null;
+      File outputFile = null;
+      EncodedImage resizedImage = null;
+      boolean systemThumbnail = false;
+      String originalDigest = null;
+      if (cached != null)
+      {
+        // every pick owns its file, one of them deleting or moving it leaves the others alone
+        outputFile = createOutputLink(reactContext, cached.image.file, cached.image.format.extension);
+        resizedImage = cached.image.withFile(outputFile);
+        systemThumbnail = cached.systemThumbnail;
+        originalDigest = cached.originalDigest;
+      }
+      else
+      {
+        try
+        {
+          outputFile = fileOutput || streamOutput ? createOutputFile(reactContext, encoder.format.extension) : null;
+          if (rotatedImageConfig.thumbnail)
+          {
+            resizedImage = getSystemThumbnail(reactContext.getContentResolver(), uri, rotatedImageConfig,
+                    metadata, encoder, bitmapPool, outputFile, cancellationSignal);
+            systemThumbnail = resizedImage != null;
+          }
+          if (resizedImage == null)
+          {
+            // also when there is no system thumbnail, the sampled decode honours the same limits
+            final long reservedMemory = reserveDecodeMemory(estimateResizeMemory(rotatedImageConfig, metadata));
+            try
+            {
+              // the budget may have been waited for a while
+              cancellationSignal.throwIfCanceled();
+              InputStream stream = openDigestStream(input, rotatedImageConfig.digest);
+              ImageInputSession reopenedInput = null;
+              try
+              {
+                try
+                {
+                  resizedImage = getResizedImage(stream, rotatedImageConfig,
+                          metadata, encoder, bitmapPool, outputFile, cancellationSignal);
+                }
+                catch (BitmapReuseException e)
+                {
+                  reopenedInput = ImageInputSession.open(reactContext.getContentResolver(), uri);
+                  stream = openDigestStream(reopenedInput, rotatedImageConfig.digest);
+                  resizedImage = getResizedImage(stream, rotatedImageConfig,
+                          metadata, encoder, nonReusingBitmapPool, outputFile, cancellationSignal);
+                }
+                if (resizedImage != null && stream instanceof DigestInputStream)
+                {
+                  // a system thumbnail doesn't read the original, there is no digest of it then
+                  originalDigest = ContentDigest.finish((DigestInputStream) stream);
+                }
+              }
+              finally
+              {
+                if (reopenedInput != null)
+                {
+                  reopenedInput.close();
+                }
+              }
+            }
+            finally
+            {
+              decodeMemoryBudget.release(reservedMemory);
+            }
+          }
+        }
+        catch (OperationCanceledException | IOException e)
+        {
+          if (outputFile != null)
+          {
+            outputFile.delete();
+          }
+          throw e;
+        }
+        finally
+        {
+          if (cacheKey != null)
+          {
+            getResultCache().release(cacheKey, resizedImage != null
+                    ? new ResultCache.Entry(resizedImage, systemThumbnail, originalDigest)
+                    : null);
+          }
+        }
+      }
+      if (rotatedImageConfig.thumbnail)
+      {
+        responseHelper.putBoolean("systemThumbnail", systemThumbnail);
+      }
+      if (originalDigest != null)
+      {
+        responseHelper.putString("originalDigest", originalDigest);
       }
 
       if (resizedImage == null)
       {
+        if (outputFile != null)
+        {
+          outputFile.delete();
+        }
         responseHelper.putString("error", "Can't resize the image");
+        return null;
+      }
+      if (rotatedImageConfig.maxFileSize > 0)
+      {
+        responseHelper.putDouble("quality", resizedImage.quality / 100d);
+        responseHelper.putInt("encodeAttempts", resizedImage.encodeAttempts);
+      }
+      if (streamOutput)
+      {
+        responseHelper.putInt("width", resizedImage.width);
+        responseHelper.putInt("height", resizedImage.height);
+        responseHelper.putString("type", resizedImage.format.mimeType);
+        responseHelper.putString("outputFormat", resizedImage.format.option);
+        responseHelper.putDouble("fileSize", resizedImage.size);
+        if (resizedImage.digest != null)
+        {
+          responseHelper.putString("digest", resizedImage.digest);
+        }
+        // the temporary file is removed once it's streamed
+        return DataStreamer.deleteOnClose(outputFile);
       }
       else
       {
-        responseHelper.putInt("width", resizedImage.getWidth());
-        responseHelper.putInt("height", resizedImage.getHeight());
-        ByteArrayOutputStream bos = new ByteArrayOutputStream();
-        resizedImage.compress(Bitmap.CompressFormat.JPEG, imageConfig.quality, bos);
-        byte[] bitmapdata = bos.toByteArray();
-        ByteArrayInputStream bs = new ByteArrayInputStream(bitmapdata);
-        updatedResultResponse(bs);
-        resizedImage.recycle();
-        resizedImage = null;
+        responseHelper.putInt("width", resizedImage.width);
+        responseHelper.putInt("height", resizedImage.height);
+        updatedResultResponse(responseHelper, resizedImage);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Reads the video's metadata and grabs its poster frame, if {@link VideoConfig#poster} asks for one.
+   * A video whose metadata or poster can't be read is still returned by its uri,
+   * metadataError and posterError tell why.
+   *
+   * @param outputMode {@link #OUTPUT_MODE_FILE} or {@link #OUTPUT_MODE_DATA} for the poster
+   */
+  @WorkerThread
+  private void processVideo(@NonNull final Uri uri,
+                            @NonNull final VideoConfig videoConfig,
+                            @NonNull final String outputMode,
+                            @NonNull final ResponseHelper responseHelper,
+                            @NonNull final CancellationSignal cancellationSignal)
+  {
+    responseHelper.putString("uri", uri.toString());
+    final MediaMetadataRetriever retriever = new MediaMetadataRetriever();
+    try
+    {
+      VideoMetadata metadata = null;
+      try
+      {
+        retriever.setDataSource(reactContext, uri);
+        metadata = VideoMetadata.read(retriever, getFileSize(reactContext.getContentResolver(), uri));
+        metadata.putInto(responseHelper);
+      }
+      catch (RuntimeException e)
+      {
+        // the retriever throws when it can't read the source
+        e.printStackTrace();
+        responseHelper.putString("metadataError", e.getMessage() != null ? e.getMessage() : "Could not read video");
+      }
+      if (videoConfig.poster == null)
+      {
+        return;
+      }
+      if (metadata == null)
+      {
+        responseHelper.putString("posterError", "Could not read video");
+        return;
+      }
+      cancellationSignal.throwIfCanceled();
+      try
+      {
+        responseHelper.putMap("poster", processPosterFrame(retriever, videoConfig, metadata,
+                OUTPUT_MODE_FILE.equals(outputMode), cancellationSignal));
+      }
+      catch (OperationCanceledException e)
+      {
+        throw e;
+      }
+      catch (IOException | RuntimeException e)
+      {
+        e.printStackTrace();
+        responseHelper.putString("posterError", e.getMessage() != null ? e.getMessage() : "Could not grab poster frame");
       }
     }
-    if(imageBitmap != null){
-      imageBitmap.recycle();
-      imageBitmap = null;
+    finally
+    {
+      retriever.release();
     }
+  }
 
+  /**
+   * @throws IOException if the frame can't be grabbed or written
+   */
+  private @NonNull WritableMap processPosterFrame(@NonNull final MediaMetadataRetriever retriever,
+                                                  @NonNull final VideoConfig videoConfig,
+                                                  @NonNull final VideoMetadata metadata,
+                                                  final boolean fileOutput,
+                                                  @NonNull final CancellationSignal cancellationSignal) throws IOException
+  {
+    final OutputVariant poster = videoConfig.poster;
+    File outputFile = null;
+    EncodedImage frame = null;
+    try
+    {
+      outputFile = fileOutput
+              ? createOutputFile(reactContext, ImageEncoder.forFormat(poster.outputFormat).format.extension)
+              : null;
+      frame = getPosterFrame(retriever, poster, videoConfig.posterTimeUs, metadata,
+              bitmapPool, outputFile, cancellationSignal);
+    }
+    finally
+    {
+      if (frame == null && outputFile != null)
+      {
+        outputFile.delete();
+      }
+    }
+    if (frame == null)
+    {
+      throw new IOException("Could not grab poster frame");
+    }
+    final ResponseHelper posterHelper = new ResponseHelper();
+    posterHelper.putInt("width", frame.width);
+    posterHelper.putInt("height", frame.height);
+    updatedResultResponse(posterHelper, frame);
+    return posterHelper.getResponse();
+  }
+
+  /**
+   * Copies the picked original as it is into the directory of copyTo, see {@link MediaUtils#copyContent}.
+   * A failed copy is reported by copyError, the pick itself still succeeds.
+   *
+   * @param input the image's open session, a file is copied from it instead of being opened again
+   * @param copyTo {@link #COPY_TO_CACHES} or {@link #COPY_TO_DOCUMENTS}, null to not copy
+   */
+  @WorkerThread
+  private void copyOriginal(@NonNull final Uri uri,
+                            @Nullable final ImageInputSession input,
+                            @Nullable final String copyTo,
+                            @NonNull final ResponseHelper responseHelper,
+                            @NonNull final CancellationSignal cancellationSignal)
+  {
+    if (copyTo == null)
+    {
+      return;
+    }
+    File copy = null;
+    try
+    {
+      copy = createCopyFile(reactContext, COPY_TO_DOCUMENTS.equals(copyTo), getExtension(uri));
+      final long start = System.nanoTime();
+      final long sessionCopiedBytes = input != null ? input.copyTo(copy, cancellationSignal) : -1;
+      final long copiedBytes = sessionCopiedBytes >= 0
+              ? sessionCopiedBytes
+              : copyContent(reactContext.getContentResolver(), uri, copy, cancellationSignal);
+      final long elapsedNanos = Math.max(1, System.nanoTime() - start);
+      responseHelper.putString("fileCopyUri", Uri.fromFile(copy).toString());
+      responseHelper.putDouble("copiedBytes", copiedBytes);
+      // bytes per second
+      responseHelper.putDouble("copyThroughput", copiedBytes * 1e9 / elapsedNanos);
+      copy = null;
+    }
+    catch (IOException | SecurityException e)
+    {
+      e.printStackTrace();
+      responseHelper.putString("copyError", e.getMessage() != null ? e.getMessage() : "Could not copy file");
+    }
+    finally
+    {
+      // also when the copy has been cancelled
+      if (copy != null)
+      {
+        copy.delete();
+      }
+    }
+  }
+
+  /**
+   * @return file extension for the content's mime type, "bin" if it's unknown
+   */
+  private @NonNull String getExtension(@NonNull final Uri uri)
+  {
+    final String type = reactContext.getContentResolver().getType(uri);
+    String extension = type != null
+            ? MimeTypeMap.getSingleton().getExtensionFromMimeType(type)
+            : MimeTypeMap.getFileExtensionFromUrl(uri.toString());
+    return extension != null && !extension.isEmpty()
+            ? extension
+            : "bin";
+  }
+
+  /**
+   * @return output mode for images which can't be streamed, stream falls back to files
+   */
+  private static @NonNull String getUnstreamedOutputMode(@NonNull final String outputMode)
+  {
+    return OUTPUT_MODE_STREAM.equals(outputMode)
+            ? OUTPUT_MODE_FILE
+            : outputMode;
+  }
+
+  /**
+   * Puts every rendition of {@link ImageConfig#outputs}, created from a single decode, into the outputs array
+   */
+  @WorkerThread
+  private void processOutputs(@NonNull final Uri uri,
+                              @NonNull final ImageInputSession input,
+                              @NonNull final ImageConfig imageConfig,
+                              @NonNull final ImageMetadata metadata,
+                              final boolean fileOutput,
+                              @NonNull final ResponseHelper responseHelper,
+                              @NonNull final CancellationSignal cancellationSignal) throws IOException
+  {
+    final long reservedMemory = reserveDecodeMemory(estimateOutputsMemory(imageConfig, metadata));
+    final List<File> outputFiles = fileOutput ? new ArrayList<File>() : null;
+    List<EncodedImage> images = null;
+    String originalDigest = null;
+    ImageInputSession reopenedInput = null;
+    try
+    {
+      cancellationSignal.throwIfCanceled();
+      if (outputFiles != null)
+      {
+        for (OutputVariant output : imageConfig.outputs)
+        {
+          outputFiles.add(createOutputFile(reactContext, ImageEncoder.forFormat(output.outputFormat).format.extension));
+        }
+      }
+      InputStream stream = openDigestStream(input, imageConfig.digest);
+      try
+      {
+        images = getResizedImages(stream, imageConfig, metadata, bitmapPool,
+                outputFiles, processingExecutor, cancellationSignal);
+      }
+      catch (BitmapReuseException e)
+      {
+        reopenedInput = ImageInputSession.open(reactContext.getContentResolver(), uri);
+        stream = openDigestStream(reopenedInput, imageConfig.digest);
+        images = getResizedImages(stream, imageConfig, metadata, nonReusingBitmapPool,
+                outputFiles, processingExecutor, cancellationSignal);
+      }
+      if (images != null && stream instanceof DigestInputStream)
+      {
+        originalDigest = ContentDigest.finish((DigestInputStream) stream);
+      }
+    }
+    finally
+    {
+      decodeMemoryBudget.release(reservedMemory);
+      if (reopenedInput != null)
+      {
+        reopenedInput.close();
+      }
+      if (images == null && outputFiles != null)
+      {
+        for (File outputFile : outputFiles)
+        {
+          outputFile.delete();
+        }
+      }
+    }
+
+    if (images == null)
+    {
+      responseHelper.putString("error", "Can't resize the image");
+      return;
+    }
+    if (originalDigest != null)
+    {
+      responseHelper.putString("originalDigest", originalDigest);
+    }
+    final WritableArray outputs = Arguments.createArray();
+    for (int i = 0; i < images.size(); i++)
+    {
+      final EncodedImage image = images.get(i);
+      final ResponseHelper outputHelper = new ResponseHelper();
+      final String name = imageConfig.outputs.get(i).name;
+      if (name != null)
+      {
+        outputHelper.putString("name", name);
+      }
+      outputHelper.putInt("width", image.width);
+      outputHelper.putInt("height", image.height);
+      updatedResultResponse(outputHelper, image);
+      outputs.pushMap(outputHelper.getResponse());
+    }
+    responseHelper.putArray("outputs", outputs);
+  }
+
+  /**
+   * @return whether the original is within maxFileSize, if it has one
+   */
+  private static boolean originalFits(final long fileSize,
+                                      @NonNull final ImageConfig imageConfig)
+  {
+    if (imageConfig.maxFileSize <= 0)
+    {
+      return true;
+    }
+    return fileSize >= 0 && fileSize <= imageConfig.maxFileSize;
+  }
 
-    responseHelper.invokeResponse(callback);
-    callback = null;
-    this.options = null;
+  /**
+   * @return the cached result, or null if the caller has to process the image and release the key
+   */
+  private @Nullable ResultCache.Entry acquireCachedResult(@NonNull final String cacheKey,
+                                                          @NonNull final CancellationSignal cancellationSignal) throws IOException
+  {
+    try
+    {
+      return getResultCache().acquire(cacheKey, cancellationSignal);
+    }
+    catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Image processing was interrupted");
+    }
+  }
+
+  private long reserveDecodeMemory(final long bytes) throws IOException
+  {
+    try
+    {
+      return decodeMemoryBudget.acquire(bytes);
+    }
+    catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Image processing was interrupted");
+    }
   }
 
-  public void invokeCustomButton(@NonNull final String action)
+  public void invokeCustomButton(@NonNull final PickerSession session,
+                                 @NonNull final String action)
   {
-    responseHelper.invokeCustomButton(this.callback, action);
+    if (sessions.remove(session.id) != null)
+    {
+      session.responseHelper.invokeCustomButton(session.callback, action);
+    }
   }
 
   @Override
@@ -555,20 +1582,64 @@ public class ImagePickerModule extends ReactContextBaseJavaModule
   }
 
 
-  private boolean passResult(int requestCode)
+  private static boolean isLaunchRequest(int requestCode)
   {
-    return callback == null || (cameraCaptureURI == null && requestCode == REQUEST_LAUNCH_IMAGE_CAPTURE)
-            || (requestCode != REQUEST_LAUNCH_IMAGE_CAPTURE && requestCode != REQUEST_LAUNCH_IMAGE_LIBRARY
-            && requestCode != REQUEST_LAUNCH_VIDEO_LIBRARY && requestCode != REQUEST_LAUNCH_VIDEO_CAPTURE);
+    return requestCode == REQUEST_LAUNCH_IMAGE_CAPTURE || requestCode == REQUEST_LAUNCH_IMAGE_LIBRARY
+            || requestCode == REQUEST_LAUNCH_VIDEO_LIBRARY || requestCode == REQUEST_LAUNCH_VIDEO_CAPTURE;
   }
 
-  private void updatedResultResponse(@NonNull final InputStream inputStream)
+  private void updatedResultResponse(@NonNull final ResponseHelper responseHelper,
+                                     @NonNull final InputStream inputStream)
   {
       responseHelper.putString("data", getBase64StringFromInputStream(inputStream));
   }
 
+  private void updatedResultResponse(@NonNull final ResponseHelper responseHelper,
+                                     @NonNull final EncodedImage image)
+  {
+      responseHelper.putString("type", image.format.mimeType);
+      responseHelper.putString("outputFormat", image.format.option);
+      responseHelper.putDouble("fileSize", image.size);
+      if (image.file != null)
+      {
+        responseHelper.putString("uri", Uri.fromFile(image.file).toString());
+        responseHelper.putString("path", image.file.getAbsolutePath());
+        responseHelper.putString("fileName", image.file.getName());
+      }
+      else
+      {
+        responseHelper.putString("data", image.base64);
+      }
+      if (image.digest != null)
+      {
+        responseHelper.putString("digest", image.digest);
+      }
+  }
+
+  /**
+   * @return the image stream, digesting what is read from it if an algorithm is given
+   */
+  private static @NonNull InputStream openDigestStream(@NonNull final ImageInputSession input,
+                                                       @Nullable final String digestAlgorithm) throws IOException
+  {
+    final InputStream stream = input.openStream();
+    return digestAlgorithm != null
+            ? new DigestInputStream(stream, ContentDigest.create(digestAlgorithm))
+            : stream;
+  }
+
+  /**
+   * The original is returned untouched, its digest is the one of the result as well
+   */
+  private static void putOriginalDigest(@NonNull final ResponseHelper responseHelper,
+                                        @NonNull final String digest)
+  {
+    responseHelper.putString("originalDigest", digest);
+    responseHelper.putString("digest", digest);
+  }
+
   private boolean permissionsCheck(@NonNull final Activity activity,
-                                   @NonNull final Callback callback,
+                                   @NonNull final PickerSession session,
                                    @NonNull final int requestCode)
   {
     final int writePermission = ActivityCompat
@@ -594,7 +1665,7 @@ public class ImagePickerModule extends ReactContextBaseJavaModule
       if (dontAskAgain)
       {
         final AlertDialog dialog = PermissionUtils
-                .explainingDialog(this, options, new PermissionUtils.OnExplainingPermissionCallback()
+                .explainingDialog(this, session.options, new PermissionUtils.OnExplainingPermissionCallback()
                 {
                   @Override
                   public void onCancel(WeakReference<ImagePickerModule> moduleInstance,
@@ -605,7 +1676,7 @@ public class ImagePickerModule extends ReactContextBaseJavaModule
                     {
                       return;
                     }
-                    module.doOnCancel();
+                    module.doOnCancel(session);
                   }
 
                   @Override
@@ -648,6 +1719,7 @@ public class ImagePickerModule extends ReactContextBaseJavaModule
             break;
         }
 
+        addPendingSession(requestCode, session);
         if (activity instanceof ReactActivity)
         {
           ((ReactActivity) activity).requestPermissions(PERMISSIONS, requestCode, listener);
@@ -708,28 +1780,4 @@ public class ImagePickerModule extends ReactContextBaseJavaModule
       return null;
     }
   }
-
-  private void parseOptions(final ReadableMap options) {
-    noData = false;
-    if (options.hasKey("noData")) {
-      noData = options.getBoolean("noData");
-    }
-    imageConfig = imageConfig.updateFromOptions(options);
-    pickVideo = false;
-    pickBoth = false;
-    if (options.hasKey("mediaType") && options.getString("mediaType").equals("mixed")) {
-      pickBoth = true;
-    }
-    if (options.hasKey("mediaType") && options.getString("mediaType").equals("video")) {
-      pickVideo = true;
-    }
-    videoQuality = 1;
-    if (options.hasKey("videoQuality") && options.getString("videoQuality").equals("low")) {
-      videoQuality = 0;
-    }
-    videoDurationLimit = 0;
-    if (options.hasKey("durationLimit")) {
-      videoDurationLimit = options.getInt("durationLimit");
-    }
-  }
 }
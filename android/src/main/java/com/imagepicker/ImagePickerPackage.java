@@ -1,5 +1,6 @@
 package com.imagepicker;
 
+import androidx.annotation.Nullable;
 import androidx.annotation.StyleRes;
 
 import com.facebook.react.ReactPackage;
@@ -11,23 +12,38 @@ import com.facebook.react.uimanager.ViewManager;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
 
 public class ImagePickerPackage implements ReactPackage {
   private @StyleRes final int dialogThemeId;
+  private @Nullable final ExecutorService processingExecutor;
 
   public ImagePickerPackage()
   {
-    this.dialogThemeId = ImagePickerModule.DEFAULT_EXPLAINING_PERMISSION_DIALIOG_THEME;
+    this(ImagePickerModule.DEFAULT_EXPLAINING_PERMISSION_DIALIOG_THEME);
   }
 
   public ImagePickerPackage(@StyleRes final int dialogThemeId)
+  {
+    this(dialogThemeId, null);
+  }
+
+  /**
+   * @param dialogThemeId Theme of the explaining permissions dialog
+   * @param processingExecutor Executor for decoding/resizing/encoding of picked images.
+   *                           It is owned by the caller and won't be shut down by the module.
+   *                           Pass null to use the module's own background pool.
+   */
+  public ImagePickerPackage(@StyleRes final int dialogThemeId,
+                            @Nullable final ExecutorService processingExecutor)
   {
     this.dialogThemeId = dialogThemeId;
+    this.processingExecutor = processingExecutor;
   }
 
   @Override
   public List<NativeModule> createNativeModules(ReactApplicationContext reactContext) {
-    return Arrays.<NativeModule>asList(new ImagePickerModule(reactContext, dialogThemeId));
+    return Arrays.<NativeModule>asList(new ImagePickerModule(reactContext, dialogThemeId, processingExecutor));
   }
 
   // Deprecated RN 0.47
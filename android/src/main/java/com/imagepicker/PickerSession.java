@@ -0,0 +1,99 @@
+package com.imagepicker;
+
+import android.net.Uri;
+import android.os.CancellationSignal;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.facebook.react.bridge.Callback;
+import com.facebook.react.bridge.ReadableMap;
+import com.imagepicker.media.ImageConfig;
+import com.imagepicker.media.VideoConfig;
+import com.imagepicker.utils.DataStreamer;
+import com.imagepicker.utils.ReadableMapUtils;
+
+/**
+ * State of one picker call, from the launch until its callback is invoked.
+ *
+ * Every call gets its own session with the options parsed once, so concurrent picks
+ * and their background processing don't share any mutable state.
+ */
+public class PickerSession
+{
+    public final @NonNull String id;
+    public final @NonNull Callback callback;
+    public final @NonNull ReadableMap options;
+    public final @NonNull ImageConfig imageConfig;
+    public final @NonNull VideoConfig videoConfig;
+    public final @NonNull ResponseHelper responseHelper = new ResponseHelper();
+    /**
+     * Cancelled when the job is cancelled from JS, the processing stops at its next check
+     */
+    public final @NonNull CancellationSignal cancellationSignal = new CancellationSignal();
+
+    public final boolean noData;
+    public final @NonNull String outputMode;
+    public final int chunkSize;
+    public final boolean pickVideo;
+    public final boolean pickBoth;
+    public final boolean multiple;
+    public final int videoQuality;
+    public final int videoDurationLimit;
+    /**
+     * Where the picked original is copied to, see {@link ImagePickerModule#COPY_TO_CACHES}, null if it isn't
+     */
+    public final @Nullable String copyTo;
+
+    private volatile @Nullable Uri cameraCaptureUri;
+
+    public PickerSession(@NonNull final String id,
+                         @NonNull final ReadableMap options,
+                         @NonNull final Callback callback)
+    {
+        this.id = id;
+        this.options = options;
+        this.callback = callback;
+        this.imageConfig = new ImageConfig(0, 0, 100, 0, false).updateFromOptions(options);
+        this.videoConfig = new VideoConfig(null, 0).updateFromOptions(options, imageConfig);
+        this.noData = options.hasKey("noData") && options.getBoolean("noData");
+        this.outputMode = ReadableMapUtils.hasAndNotEmptyString(options, "outputMode")
+                ? options.getString("outputMode")
+                : ImagePickerModule.OUTPUT_MODE_DATA;
+        this.chunkSize = options.hasKey("chunkSize")
+                ? DataStreamer.normalizeChunkSize((int) options.getDouble("chunkSize"))
+                : DataStreamer.DEFAULT_CHUNK_SIZE;
+        final String mediaType = options.hasKey("mediaType") ? options.getString("mediaType") : null;
+        this.pickVideo = "video".equals(mediaType);
+        this.pickBoth = "mixed".equals(mediaType);
+        this.multiple = options.hasKey("multiple") && options.getBoolean("multiple");
+        this.videoQuality = options.hasKey("videoQuality") && options.getString("videoQuality").equals("low")
+                ? 0
+                : 1;
+        this.videoDurationLimit = options.hasKey("durationLimit")
+                ? options.getInt("durationLimit")
+                : 0;
+        this.copyTo = ReadableMapUtils.hasAndNotEmptyString(options, "copyTo")
+                ? options.getString("copyTo")
+                : null;
+    }
+
+    /**
+     * @return output mode for the picked images, noData turns the default data mode into files
+     */
+    public @NonNull String getImageOutputMode()
+    {
+        return noData && ImagePickerModule.OUTPUT_MODE_DATA.equals(outputMode)
+                ? ImagePickerModule.OUTPUT_MODE_FILE
+                : outputMode;
+    }
+
+    public @Nullable Uri getCameraCaptureUri()
+    {
+        return cameraCaptureUri;
+    }
+
+    public void setCameraCaptureUri(@Nullable final Uri cameraCaptureUri)
+    {
+        this.cameraCaptureUri = cameraCaptureUri;
+    }
+}
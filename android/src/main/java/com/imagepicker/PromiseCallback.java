@@ -0,0 +1,36 @@
+package com.imagepicker;
+
+import androidx.annotation.NonNull;
+
+import com.facebook.react.bridge.Callback;
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.ReadableMap;
+
+/**
+ * Lets a session started from a promise based method deliver its response like any other session:
+ * the promise is resolved with the response the callback would get, cancellation included.
+ * A response with an error rejects it with {@link ImagePickerModule#E_PICKER_FAILED} and the error as message.
+ */
+class PromiseCallback implements Callback
+{
+    private final Promise promise;
+
+    PromiseCallback(@NonNull final Promise promise)
+    {
+        this.promise = promise;
+    }
+
+    @Override
+    public void invoke(Object... args)
+    {
+        final Object response = args.length > 0 ? args[0] : null;
+        if (response instanceof ReadableMap
+                && ((ReadableMap) response).hasKey("error")
+                && !((ReadableMap) response).isNull("error"))
+        {
+            promise.reject(ImagePickerModule.E_PICKER_FAILED, ((ReadableMap) response).getString("error"));
+            return;
+        }
+        promise.resolve(response);
+    }
+}
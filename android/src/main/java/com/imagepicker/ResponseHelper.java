@@ -4,6 +4,7 @@ import androidx.annotation.NonNull;
 
 import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.Callback;
+import com.facebook.react.bridge.WritableArray;
 import com.facebook.react.bridge.WritableMap;
 
 /**
@@ -48,6 +49,27 @@ public class ResponseHelper
         response.putDouble(key, value);
     }
 
+    public void putArray(@NonNull final String key,
+                         @NonNull final WritableArray value)
+    {
+        response.putArray(key, value);
+    }
+
+    public void putMap(@NonNull final String key,
+                       @NonNull final WritableMap value)
+    {
+        response.putMap(key, value);
+    }
+
+    /**
+     * Replaces the response with just the error
+     */
+    public void putError(@NonNull final String error)
+    {
+        cleanResponse();
+        response.putString("error", error);
+    }
+
     public void invokeCustomButton(@NonNull final Callback callback,
                                    @NonNull final String action)
     {
@@ -66,8 +88,7 @@ public class ResponseHelper
     public void invokeError(@NonNull final Callback callback,
                             @NonNull final String error)
     {
-        cleanResponse();
-        response.putString("error", error);
+        putError(error);
         invokeResponse(callback);
     }
 
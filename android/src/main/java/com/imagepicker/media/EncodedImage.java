@@ -0,0 +1,105 @@
+package com.imagepicker.media;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.File;
+
+/**
+ * Result of encoding a processed bitmap exactly once.
+ * The encoded bytes are kept either as a {@link #base64} string or in a {@link #file}.
+ */
+public class EncodedImage
+{
+    public final int width;
+    public final int height;
+    public final @NonNull OutputFormat format;
+    public final int quality;
+    public final @Nullable File file;
+    public final @Nullable String base64;
+    public final int size;
+
+    /**
+     * How many times the bitmap was encoded to find a quality within a size limit, 1 without one
+     */
+    public final int encodeAttempts;
+
+    /**
+     * Hex digest of the encoded bytes, null if none has been asked for
+     */
+    public final @Nullable String digest;
+
+    private EncodedImage(final int width,
+                         final int height,
+                         @NonNull final OutputFormat format,
+                         final int quality,
+                         @Nullable final File file,
+                         @Nullable final String base64,
+                         final int size,
+                         final int encodeAttempts,
+                         @Nullable final String digest)
+    {
+        this.width = width;
+        this.height = height;
+        this.format = format;
+        this.quality = quality;
+        this.file = file;
+        this.base64 = base64;
+        this.size = size;
+        this.encodeAttempts = encodeAttempts;
+        this.digest = digest;
+    }
+
+    public static @NonNull EncodedImage inFile(final int width,
+                                               final int height,
+                                               @NonNull final OutputFormat format,
+                                               final int quality,
+                                               @NonNull final File file)
+    {
+        return inFile(width, height, format, quality, file, (int) file.length());
+    }
+
+    /**
+     * @param size Count of encoded bytes written to the file, it may have changed since
+     */
+    public static @NonNull EncodedImage inFile(final int width,
+                                               final int height,
+                                               @NonNull final OutputFormat format,
+                                               final int quality,
+                                               @NonNull final File file,
+                                               final int size)
+    {
+        return new EncodedImage(width, height, format, quality, file, null, size, 1, null);
+    }
+
+    /**
+     * @param size Count of encoded bytes before base64
+     */
+    public static @NonNull EncodedImage inBase64(final int width,
+                                                 final int height,
+                                                 @NonNull final OutputFormat format,
+                                                 final int quality,
+                                                 @NonNull final String base64,
+                                                 final int size)
+    {
+        return new EncodedImage(width, height, format, quality, null, base64, size, 1, null);
+    }
+
+    /**
+     * @return the same image in another file with the same content
+     */
+    public @NonNull EncodedImage withFile(@NonNull final File file)
+    {
+        return new EncodedImage(width, height, format, quality, file, null, size, encodeAttempts, digest);
+    }
+
+    public @NonNull EncodedImage withEncodeAttempts(final int encodeAttempts)
+    {
+        return new EncodedImage(width, height, format, quality, file, base64, size, encodeAttempts, digest);
+    }
+
+    public @NonNull EncodedImage withDigest(@Nullable final String digest)
+    {
+        return new EncodedImage(width, height, format, quality, file, base64, size, encodeAttempts, digest);
+    }
+}
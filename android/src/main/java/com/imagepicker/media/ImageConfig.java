@@ -6,9 +6,14 @@ import androidx.annotation.Nullable;
 import android.net.Uri;
 import android.webkit.MimeTypeMap;
 
+import com.facebook.react.bridge.ReadableArray;
 import com.facebook.react.bridge.ReadableMap;
+import com.imagepicker.utils.ContentDigest;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * Created by rusfearuth on 15.03.17.
@@ -16,30 +21,93 @@ import java.io.File;
 
 public class ImageConfig
 {
+    /**
+     * Decoded images which would need more memory than this are resized strip by strip
+     */
+    public static final long DEFAULT_DECODE_MEMORY_BUDGET = 64L * 1024 * 1024;
+
+    /**
+     * Size limit of thumbnails which have no maxWidth or maxHeight
+     */
+    public static final int DEFAULT_THUMBNAIL_SIZE = 512;
+
     public final int maxWidth;
     public final int maxHeight;
     public final int quality;
     public final int rotation;
     public final boolean saveToCameraRoll;
+    public final long decodeMemoryBudget;
+
+    /**
+     * Requested output format, null keeps the default {@link OutputFormat#JPEG} and lets originals of any format through
+     */
+    public final @Nullable OutputFormat outputFormat;
+
+    /**
+     * Bytes the encoded image may take at most, 0 means no limit
+     */
+    public final long maxFileSize;
+
+    /**
+     * Renditions to produce from a single decode instead of one image, empty if there aren't any
+     */
+    public final @NonNull List<OutputVariant> outputs;
+
+    /**
+     * Whether a system thumbnail is enough, the image is decoded only if there isn't one
+     */
+    public final boolean thumbnail;
+
+    /**
+     * {@link java.security.MessageDigest} algorithm of the digests returned for the original and processed bytes,
+     * null if none are
+     */
+    public final @Nullable String digest;
 
     public ImageConfig(final int maxWidth,
                        final int maxHeight,
                        final int quality,
                        final int rotation,
                        final boolean saveToCameraRoll)
+    {
+        this(maxWidth, maxHeight, quality, rotation, saveToCameraRoll, DEFAULT_DECODE_MEMORY_BUDGET, null, 0,
+                Collections.<OutputVariant>emptyList(), false, null);
+    }
+
+    /**
+     * Every field, the other options are set with the withX copies
+     */
+    private ImageConfig(final int maxWidth,
+                        final int maxHeight,
+                        final int quality,
+                        final int rotation,
+                        final boolean saveToCameraRoll,
+                        final long decodeMemoryBudget,
+                        @Nullable final OutputFormat outputFormat,
+                        final long maxFileSize,
+                        @NonNull final List<OutputVariant> outputs,
+                        final boolean thumbnail,
+                        @Nullable final String digest)
     {
         this.maxWidth = maxWidth;
         this.maxHeight = maxHeight;
         this.quality = quality;
         this.rotation = rotation;
         this.saveToCameraRoll = saveToCameraRoll;
+        this.decodeMemoryBudget = decodeMemoryBudget;
+        this.outputFormat = outputFormat;
+        this.maxFileSize = maxFileSize;
+        this.outputs = Collections.unmodifiableList(new ArrayList<>(outputs));
+        this.thumbnail = thumbnail;
+        this.digest = digest;
     }
 
     public @NonNull ImageConfig withMaxWidth(final int maxWidth)
     {
         return new ImageConfig(maxWidth,
                 this.maxHeight, this.quality, this.rotation,
-                this.saveToCameraRoll
+                this.saveToCameraRoll, this.decodeMemoryBudget, this.outputFormat, this.maxFileSize,
+                this.outputs, this.thumbnail, this.digest
         );
     }
 
@@ -47,7 +115,8 @@ public class ImageConfig
     {
         return new ImageConfig(this.maxWidth,
                 maxHeight, this.quality, this.rotation,
-                this.saveToCameraRoll
+                this.saveToCameraRoll, this.decodeMemoryBudget, this.outputFormat, this.maxFileSize,
+                this.outputs, this.thumbnail, this.digest
         );
 
     }
@@ -56,7 +125,8 @@ public class ImageConfig
     {
         return new ImageConfig(this.maxWidth,
                 this.maxHeight, quality, this.rotation,
-                this.saveToCameraRoll
+                this.saveToCameraRoll, this.decodeMemoryBudget, this.outputFormat, this.maxFileSize,
+                this.outputs, this.thumbnail, this.digest
         );
     }
 
@@ -64,16 +134,17 @@ public class ImageConfig
     {
         return new ImageConfig(this.maxWidth,
                 this.maxHeight, this.quality, rotation,
-                this.saveToCameraRoll
+                this.saveToCameraRoll, this.decodeMemoryBudget, this.outputFormat, this.maxFileSize,
+                this.outputs, this.thumbnail, this.digest
         );
     }
 
     public @NonNull ImageConfig withUri(@Nullable final Uri uri)
     {
+        int quality = this.quality;
         if (uri!= null) {
             //if it is a GIF file, always set quality to 100 to prevent compression
             String extension = MimeTypeMap.getFileExtensionFromUrl(uri.getPath());
-            int quality = this.quality;
             if(extension.contains("gif")){
                 quality = 100;
             }
@@ -81,7 +152,8 @@ public class ImageConfig
 
         return new ImageConfig(this.maxWidth,
                 this.maxHeight, quality, this.rotation,
-                this.saveToCameraRoll
+                this.saveToCameraRoll, this.decodeMemoryBudget, this.outputFormat, this.maxFileSize,
+                this.outputs, this.thumbnail, this.digest
         );
     }
 
@@ -91,10 +163,103 @@ public class ImageConfig
         return new ImageConfig(
                 this.maxWidth,
                 this.maxHeight, this.quality, this.rotation,
-                saveToCameraRoll
+                saveToCameraRoll, this.decodeMemoryBudget, this.outputFormat, this.maxFileSize,
+                this.outputs, this.thumbnail, this.digest
+        );
+    }
+
+    public @NonNull ImageConfig withDecodeMemoryBudget(final long decodeMemoryBudget)
+    {
+        return new ImageConfig(
+                this.maxWidth,
+                this.maxHeight, this.quality, this.rotation,
+                this.saveToCameraRoll, decodeMemoryBudget, this.outputFormat, this.maxFileSize,
+                this.outputs, this.thumbnail, this.digest
+        );
+    }
+
+    public @NonNull ImageConfig withOutputFormat(@Nullable final OutputFormat outputFormat)
+    {
+        return new ImageConfig(
+                this.maxWidth,
+                this.maxHeight, this.quality, this.rotation,
+                this.saveToCameraRoll, this.decodeMemoryBudget, outputFormat, this.maxFileSize,
+                this.outputs, this.thumbnail, this.digest
+        );
+    }
+
+    public @NonNull ImageConfig withMaxFileSize(final long maxFileSize)
+    {
+        return new ImageConfig(
+                this.maxWidth,
+                this.maxHeight, this.quality, this.rotation,
+                this.saveToCameraRoll, this.decodeMemoryBudget, this.outputFormat, maxFileSize,
+                this.outputs, this.thumbnail, this.digest
         );
     }
 
+    /**
+     * @return the format processed images are encoded to
+     */
+    public @NonNull OutputFormat getOutputFormat()
+    {
+        return outputFormat != null ? outputFormat : OutputFormat.JPEG;
+    }
+
+    public @NonNull ImageConfig withOutputs(@NonNull final List<OutputVariant> outputs)
+    {
+        return new ImageConfig(
+                this.maxWidth,
+                this.maxHeight, this.quality, this.rotation,
+                this.saveToCameraRoll, this.decodeMemoryBudget, this.outputFormat, this.maxFileSize,
+                outputs, this.thumbnail, this.digest
+        );
+    }
+
+    public @NonNull ImageConfig withThumbnail(final boolean thumbnail)
+    {
+        return new ImageConfig(
+                this.maxWidth,
+                this.maxHeight, this.quality, this.rotation,
+                this.saveToCameraRoll, this.decodeMemoryBudget, this.outputFormat, this.maxFileSize,
+                this.outputs, thumbnail, this.digest
+        );
+    }
+
+    public @NonNull ImageConfig withDigest(@Nullable final String digest)
+    {
+        return new ImageConfig(
+                this.maxWidth,
+                this.maxHeight, this.quality, this.rotation,
+                this.saveToCameraRoll, this.decodeMemoryBudget, this.outputFormat, this.maxFileSize,
+                this.outputs, this.thumbnail, digest
+        );
+    }
+
+    /**
+     * @return canonical form of every field which affects the processed image, equal configs have equal keys
+     */
+    public @NonNull String getCacheKey()
+    {
+        final StringBuilder key = new StringBuilder()
+                .append(maxWidth).append('x').append(maxHeight)
+                .append(";quality=").append(quality)
+                .append(";rotation=").append(rotation)
+                .append(";budget=").append(decodeMemoryBudget)
+                .append(";format=").append(outputFormat != null ? outputFormat.option : "")
+                .append(";maxFileSize=").append(maxFileSize)
+                .append(";thumbnail=").append(thumbnail)
+                .append(";digest=").append(digest != null ? digest : "");
+        for (OutputVariant output : outputs)
+        {
+            key.append(";output=").append(output.name)
+                    .append(',').append(output.maxWidth).append('x').append(output.maxHeight)
+                    .append(',').append(output.quality)
+                    .append(',').append(output.outputFormat.option);
+        }
+        return key.toString();
+    }
+
     public @NonNull ImageConfig updateFromOptions(@NonNull final ReadableMap options)
     {
         int maxWidth = 0;
@@ -107,6 +272,12 @@ public class ImageConfig
         {
             maxHeight = (int) options.getDouble("maxHeight");
         }
+        final boolean thumbnail = options.hasKey("thumbnail") && options.getBoolean("thumbnail");
+        if (thumbnail && maxWidth == 0 && maxHeight == 0)
+        {
+            maxWidth = DEFAULT_THUMBNAIL_SIZE;
+            maxHeight = DEFAULT_THUMBNAIL_SIZE;
+        }
         int quality = 100;
         if (options.hasKey("quality"))
         {
@@ -126,7 +297,38 @@ public class ImageConfig
                 saveToCameraRoll = storageOptions.getBoolean("cameraRoll");
             }
         }
-        return new ImageConfig(maxWidth, maxHeight, quality, rotation, saveToCameraRoll);
+        long decodeMemoryBudget = DEFAULT_DECODE_MEMORY_BUDGET;
+        if (options.hasKey("decodeMemoryBudget"))
+        {
+            decodeMemoryBudget = (long) options.getDouble("decodeMemoryBudget");
+        }
+        OutputFormat outputFormat = null;
+        if (options.hasKey("outputFormat") && !options.isNull("outputFormat"))
+        {
+            outputFormat = OutputFormat.fromOption(options.getString("outputFormat"));
+        }
+        long maxFileSize = 0;
+        if (options.hasKey("maxFileSize"))
+        {
+            maxFileSize = (long) options.getDouble("maxFileSize");
+        }
+        final List<OutputVariant> outputs = new ArrayList<>();
+        if (options.hasKey("outputs") && !options.isNull("outputs"))
+        {
+            final ReadableArray outputOptions = options.getArray("outputs");
+            for (int i = 0; i < outputOptions.size(); i++)
+            {
+                outputs.add(OutputVariant.fromOptions(outputOptions.getMap(i), quality,
+                        outputFormat != null ? outputFormat : OutputFormat.JPEG));
+            }
+        }
+        String digest = null;
+        if (options.hasKey("digest") && !options.isNull("digest"))
+        {
+            digest = ContentDigest.getAlgorithm(options.getString("digest"));
+        }
+        return new ImageConfig(maxWidth, maxHeight, quality, rotation, saveToCameraRoll,
+                decodeMemoryBudget, outputFormat, maxFileSize, outputs, thumbnail, digest);
     }
 
     public boolean useOriginal(int initialWidth,
@@ -137,4 +339,16 @@ public class ImageConfig
                 ((initialHeight < maxHeight && maxHeight > 0) || maxHeight == 0) &&
                 quality == 100 && (rotation == 0 || currentRotation == rotation);
     }
+
+    /**
+     * Like {@link #useOriginal(int, int, int)}, an original of another format than the requested one is re-encoded too
+     */
+    public boolean useOriginal(int initialWidth,
+                               int initialHeight,
+                               int currentRotation,
+                               @Nullable String mimeType)
+    {
+        return useOriginal(initialWidth, initialHeight, currentRotation)
+                && (outputFormat == null || outputFormat.matches(mimeType));
+    }
 }
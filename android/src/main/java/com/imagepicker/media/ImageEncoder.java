@@ -0,0 +1,124 @@
+package com.imagepicker.media;
+
+import android.graphics.Bitmap;
+import android.os.Build;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.OutputStream;
+
+/**
+ * Encodes bitmaps to one {@link OutputFormat}.
+ *
+ * {@link #forFormat(OutputFormat)} picks the encoder the platform supports for the requested format,
+ * which may be a different one; {@link #format} is the format actually written.
+ */
+public abstract class ImageEncoder
+{
+    private static final int API_Q = 29;
+    private static final int API_R = 30;
+
+    public final @NonNull OutputFormat format;
+
+    protected ImageEncoder(@NonNull final OutputFormat format)
+    {
+        this.format = format;
+    }
+
+    /**
+     * @param quality 0-100, ignored by lossless formats
+     * @return false if the bitmap couldn't be encoded
+     */
+    public abstract boolean encode(@NonNull final Bitmap bitmap,
+                                   final int quality,
+                                   @NonNull final OutputStream output);
+
+    public static @NonNull ImageEncoder forFormat(@NonNull final OutputFormat requested)
+    {
+        switch (requested)
+        {
+            case PNG:
+                return new CompressFormatEncoder(OutputFormat.PNG, Bitmap.CompressFormat.PNG, 0, 100);
+
+            case WEBP_LOSSY:
+            {
+                final Bitmap.CompressFormat webpLossy = compressFormat("WEBP_LOSSY");
+                if (webpLossy != null)
+                {
+                    return new CompressFormatEncoder(OutputFormat.WEBP_LOSSY, webpLossy, 0, 100);
+                }
+                // on Q the plain WEBP turns lossless at 100
+                return new CompressFormatEncoder(OutputFormat.WEBP_LOSSY, Bitmap.CompressFormat.WEBP,
+                        0, Build.VERSION.SDK_INT >= API_Q ? 99 : 100);
+            }
+
+            case WEBP_LOSSLESS:
+            {
+                final Bitmap.CompressFormat webpLossless = compressFormat("WEBP_LOSSLESS");
+                if (webpLossless != null)
+                {
+                    return new CompressFormatEncoder(OutputFormat.WEBP_LOSSLESS, webpLossless, 100, 100);
+                }
+                if (Build.VERSION.SDK_INT >= API_Q)
+                {
+                    return new CompressFormatEncoder(OutputFormat.WEBP_LOSSLESS, Bitmap.CompressFormat.WEBP, 100, 100);
+                }
+                // older platforms only write lossy WebP, PNG keeps the pixels intact
+                return forFormat(OutputFormat.PNG);
+            }
+
+            case HEIF:
+                // Bitmap can't write HEIF, that takes a HeifWriter from androidx.heifwriter
+                return forFormat(OutputFormat.JPEG);
+
+            case JPEG:
+            default:
+                return new CompressFormatEncoder(OutputFormat.JPEG, Bitmap.CompressFormat.JPEG, 0, 100);
+        }
+    }
+
+    /**
+     * @return the constant if this platform has it, the WebP variants were added in R
+     */
+    private static @Nullable Bitmap.CompressFormat compressFormat(@NonNull final String name)
+    {
+        if (Build.VERSION.SDK_INT < API_R)
+        {
+            return null;
+        }
+        try
+        {
+            return Bitmap.CompressFormat.valueOf(name);
+        }
+        catch (IllegalArgumentException e)
+        {
+            return null;
+        }
+    }
+
+    private static class CompressFormatEncoder extends ImageEncoder
+    {
+        private final Bitmap.CompressFormat compressFormat;
+        private final int minQuality;
+        private final int maxQuality;
+
+        CompressFormatEncoder(@NonNull final OutputFormat format,
+                              @NonNull final Bitmap.CompressFormat compressFormat,
+                              final int minQuality,
+                              final int maxQuality)
+        {
+            super(format);
+            this.compressFormat = compressFormat;
+            this.minQuality = minQuality;
+            this.maxQuality = maxQuality;
+        }
+
+        @Override
+        public boolean encode(@NonNull final Bitmap bitmap,
+                              final int quality,
+                              @NonNull final OutputStream output)
+        {
+            return bitmap.compress(compressFormat, Math.max(minQuality, Math.min(quality, maxQuality)), output);
+        }
+    }
+}
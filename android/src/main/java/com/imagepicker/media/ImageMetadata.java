@@ -0,0 +1,192 @@
+package com.imagepicker.media;
+
+import android.media.ExifInterface;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.imagepicker.ResponseHelper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.text.DateFormat;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * Immutable snapshot of what the pipeline needs to know about a picked image:
+ * its EXIF orientation, location and timestamp together with the decoded bounds.
+ *
+ * EXIF is parsed once, the snapshot can be shared by the threads processing the image.
+ */
+public class ImageMetadata
+{
+    private static final ThreadLocal<DateFormat> EXIF_DATETIME_FORMAT = new ThreadLocal<DateFormat>()
+    {
+        @Override
+        protected DateFormat initialValue()
+        {
+            return new SimpleDateFormat("yyyy:MM:dd HH:mm:ss", Locale.US);
+        }
+    };
+
+    private static final ThreadLocal<DateFormat> ISO_FORMAT = new ThreadLocal<DateFormat>()
+    {
+        @Override
+        protected DateFormat initialValue()
+        {
+            final DateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss", Locale.US);
+            format.setTimeZone(TimeZone.getTimeZone("UTC"));
+            return format;
+        }
+    };
+
+    public final int orientation;
+    public final int rotation;
+    public final boolean hasLocation;
+    public final double latitude;
+    public final double longitude;
+    public final @Nullable String timestamp;
+    public final int width;
+    public final int height;
+    public final @Nullable String mimeType;
+
+    public ImageMetadata(final int orientation,
+                         final boolean hasLocation,
+                         final double latitude,
+                         final double longitude,
+                         @Nullable final String timestamp,
+                         final int width,
+                         final int height,
+                         @Nullable final String mimeType)
+    {
+        this.orientation = orientation;
+        this.rotation = rotationOf(orientation);
+        this.hasLocation = hasLocation;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.timestamp = timestamp;
+        this.width = width;
+        this.height = height;
+        this.mimeType = mimeType;
+    }
+
+    /**
+     * Parses the EXIF of the image, the dimensions are unknown (-1) until {@link #withBounds}
+     *
+     * @return null if the stream has neither an orientation, a date nor a location,
+     * its EXIF may be further on than the stream goes
+     */
+    public static @Nullable ImageMetadata readIfPresent(@NonNull final InputStream inputStream) throws IOException
+    {
+        final ExifInterface exif = new ExifInterface(inputStream);
+        if (exif.getAttribute(ExifInterface.TAG_ORIENTATION) == null
+                && exif.getAttribute(ExifInterface.TAG_DATETIME) == null
+                && !exif.getLatLong(new float[2]))
+        {
+            return null;
+        }
+        return fromExif(exif);
+    }
+
+    /**
+     * Normal orientation, no location or date, the dimensions are unknown (-1) until {@link #withBounds}
+     */
+    public static @NonNull ImageMetadata withoutExif()
+    {
+        return new ImageMetadata(ExifInterface.ORIENTATION_NORMAL, false, 0, 0, null, -1, -1, null);
+    }
+
+    private static @NonNull ImageMetadata fromExif(@NonNull final ExifInterface exif)
+    {
+        final float[] latlng = new float[2];
+        final boolean hasLatLong = exif.getLatLong(latlng);
+        final boolean hasLocation = hasLatLong && (latlng[0] != 0f || latlng[1] != 0f);
+
+        return new ImageMetadata(
+                exif.getAttributeInt(ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL),
+                hasLocation,
+                latlng[0],
+                latlng[1],
+                toIsoTimestamp(exif.getAttribute(ExifInterface.TAG_DATETIME)),
+                -1,
+                -1,
+                null);
+    }
+
+    public static @NonNull ImageMetadata fromJpegHeader(@NonNull final JpegHeaderParser.Result header)
+    {
+        return new ImageMetadata(
+                header.orientation,
+                header.hasLocation,
+                header.latitude,
+                header.longitude,
+                toIsoTimestamp(header.dateTime),
+                header.width,
+                header.height,
+                "image/jpeg");
+    }
+
+    public @NonNull ImageMetadata withBounds(final int width,
+                                             final int height,
+                                             @Nullable final String mimeType)
+    {
+        return new ImageMetadata(orientation, hasLocation, latitude, longitude,
+                timestamp, width, height, mimeType);
+    }
+
+    /**
+     * Image looks portrait-like unless it's stored rotated by 90 or 270 degrees
+     */
+    public boolean isVertical()
+    {
+        return rotation != 90 && rotation != 270;
+    }
+
+    public void putInto(@NonNull final ResponseHelper responseHelper)
+    {
+        if (hasLocation)
+        {
+            responseHelper.putDouble("latitude", latitude);
+            responseHelper.putDouble("longitude", longitude);
+        }
+        if (timestamp != null)
+        {
+            responseHelper.putString("timestamp", timestamp);
+        }
+        responseHelper.putInt("originalRotation", rotation);
+        responseHelper.putBoolean("isVertical", isVertical());
+    }
+
+    private static int rotationOf(final int orientation)
+    {
+        switch (orientation)
+        {
+            case ExifInterface.ORIENTATION_ROTATE_90:
+                return 90;
+            case ExifInterface.ORIENTATION_ROTATE_180:
+                return 180;
+            case ExifInterface.ORIENTATION_ROTATE_270:
+                return 270;
+            default:
+                return 0;
+        }
+    }
+
+    private static @Nullable String toIsoTimestamp(@Nullable final String exifDatetime)
+    {
+        if (exifDatetime == null)
+        {
+            return null;
+        }
+        try
+        {
+            return ISO_FORMAT.get().format(EXIF_DATETIME_FORMAT.get().parse(exifDatetime)) + "Z";
+        }
+        catch (ParseException e)
+        {
+            return null;
+        }
+    }
+}
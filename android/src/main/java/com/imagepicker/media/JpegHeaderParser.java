@@ -0,0 +1,346 @@
+package com.imagepicker.media;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.nio.charset.Charset;
+
+/**
+ * Reads dimensions, orientation, GPS and DateTime straight from the segments of a JPEG header.
+ *
+ * Only the markers up to the first SOF are walked and only the APP1 Exif segment is looked into,
+ * so the leading bytes of the file are enough and nothing is decoded.
+ */
+public class JpegHeaderParser
+{
+    public static final int ORIENTATION_NORMAL = 1;
+
+    private static final Charset US_ASCII = Charset.forName("US-ASCII");
+
+    private static final int MARKER_SOI = 0xD8;
+    private static final int MARKER_EOI = 0xD9;
+    private static final int MARKER_SOS = 0xDA;
+    private static final int MARKER_APP1 = 0xE1;
+
+    private static final int TAG_ORIENTATION = 0x0112;
+    private static final int TAG_DATETIME = 0x0132;
+    private static final int TAG_GPS_IFD = 0x8825;
+    private static final int TAG_GPS_LATITUDE_REF = 0x0001;
+    private static final int TAG_GPS_LATITUDE = 0x0002;
+    private static final int TAG_GPS_LONGITUDE_REF = 0x0003;
+    private static final int TAG_GPS_LONGITUDE = 0x0004;
+
+    private static final int TYPE_ASCII = 2;
+    private static final int TYPE_SHORT = 3;
+    private static final int TYPE_LONG = 4;
+    private static final int TYPE_RATIONAL = 5;
+
+    public static class Result
+    {
+        public final int width;
+        public final int height;
+        public final int orientation;
+        public final boolean hasLocation;
+        public final double latitude;
+        public final double longitude;
+        public final @Nullable String dateTime;
+
+        Result(final int width,
+               final int height,
+               @NonNull final Exif exif)
+        {
+            this.width = width;
+            this.height = height;
+            this.orientation = exif.orientation;
+            this.hasLocation = exif.hasLatitude && exif.hasLongitude
+                    && (exif.latitude != 0d || exif.longitude != 0d);
+            this.latitude = exif.latitude;
+            this.longitude = exif.longitude;
+            this.dateTime = exif.dateTime;
+        }
+    }
+
+    public static boolean isJpeg(@NonNull final byte[] data,
+                                 final int length)
+    {
+        return length >= 2 && (data[0] & 0xFF) == 0xFF && (data[1] & 0xFF) == MARKER_SOI;
+    }
+
+    /**
+     * @return null if it isn't a JPEG or the SOF segment isn't within the first length bytes
+     */
+    public static @Nullable Result parse(@NonNull final byte[] data,
+                                         final int length)
+    {
+        if (!isJpeg(data, length))
+        {
+            return null;
+        }
+        final Exif exif = new Exif();
+        int position = 2;
+        while (position < length)
+        {
+            if ((data[position] & 0xFF) != 0xFF)
+            {
+                return null;
+            }
+            // markers may be padded with any number of 0xFF
+            while (position < length && (data[position] & 0xFF) == 0xFF)
+            {
+                position++;
+            }
+            if (position >= length)
+            {
+                return null;
+            }
+            final int marker = data[position++] & 0xFF;
+            if (marker == MARKER_SOI || marker == 0x01 || (marker >= 0xD0 && marker <= 0xD7))
+            {
+                continue;
+            }
+            if (marker == MARKER_SOS || marker == MARKER_EOI || position + 2 > length)
+            {
+                return null;
+            }
+
+            final int segmentLength = readUnsignedShort(data, position, false);
+            if (segmentLength < 2)
+            {
+                return null;
+            }
+            final int segmentStart = position + 2;
+            final int segmentEnd = position + segmentLength;
+
+            if (isStartOfFrame(marker))
+            {
+                if (segmentStart + 5 > length)
+                {
+                    return null;
+                }
+                final int height = readUnsignedShort(data, segmentStart + 1, false);
+                final int width = readUnsignedShort(data, segmentStart + 3, false);
+                return new Result(width, height, exif);
+            }
+            if (marker == MARKER_APP1 && !exif.parsed)
+            {
+                if (segmentEnd > length)
+                {
+                    return null;
+                }
+                exif.parse(data, segmentStart, segmentEnd);
+            }
+            position = segmentEnd;
+        }
+        return null;
+    }
+
+    private static boolean isStartOfFrame(final int marker)
+    {
+        // 0xC4 (DHT), 0xC8 (JPG) and 0xCC (DAC) share the range but aren't frames
+        return marker >= 0xC0 && marker <= 0xCF && marker != 0xC4 && marker != 0xC8 && marker != 0xCC;
+    }
+
+    private static int readUnsignedShort(@NonNull final byte[] data,
+                                         final int offset,
+                                         final boolean littleEndian)
+    {
+        final int first = data[offset] & 0xFF;
+        final int second = data[offset + 1] & 0xFF;
+        return littleEndian
+                ? first | (second << 8)
+                : (first << 8) | second;
+    }
+
+    private static long readUnsignedInt(@NonNull final byte[] data,
+                                        final int offset,
+                                        final boolean littleEndian)
+    {
+        final long high = readUnsignedShort(data, littleEndian ? offset + 2 : offset, littleEndian);
+        final long low = readUnsignedShort(data, littleEndian ? offset : offset + 2, littleEndian);
+        return (high << 16) | low;
+    }
+
+    /**
+     * The few tags we need out of an APP1 Exif segment. A malformed segment leaves the defaults.
+     */
+    static class Exif
+    {
+        boolean parsed;
+        int orientation = ORIENTATION_NORMAL;
+        boolean hasLatitude;
+        boolean hasLongitude;
+        double latitude;
+        double longitude;
+        @Nullable String dateTime;
+
+        private byte[] data;
+        private int tiffStart;
+        private int end;
+        private boolean littleEndian;
+
+        void parse(@NonNull final byte[] data,
+                   final int start,
+                   final int end)
+        {
+            // "Exif\0\0" then a TIFF structure whose offsets are relative to its start
+            if (end - start < 14 || data[start] != 'E' || data[start + 1] != 'x'
+                    || data[start + 2] != 'i' || data[start + 3] != 'f'
+                    || data[start + 4] != 0 || data[start + 5] != 0)
+            {
+                // another APP1, like XMP, the Exif one may still follow
+                return;
+            }
+            parsed = true;
+            this.data = data;
+            this.tiffStart = start + 6;
+            this.end = end;
+            if (data[tiffStart] == 'I' && data[tiffStart + 1] == 'I')
+            {
+                littleEndian = true;
+            }
+            else if (data[tiffStart] != 'M' || data[tiffStart + 1] != 'M')
+            {
+                return;
+            }
+            try
+            {
+                if (u16(2) != 42)
+                {
+                    return;
+                }
+                final long gpsOffset = readIfd0(u32(4));
+                if (gpsOffset > 0)
+                {
+                    readGpsIfd(gpsOffset);
+                }
+            }
+            catch (IndexOutOfBoundsException e)
+            {
+                // keeps whatever was read before the broken offset
+            }
+            finally
+            {
+                this.data = null;
+            }
+        }
+
+        /**
+         * @return offset of the GPS IFD, 0 if there isn't one
+         */
+        private long readIfd0(final long offset)
+        {
+            long gpsOffset = 0;
+            final int count = u16(offset);
+            for (int i = 0; i < count; i++)
+            {
+                final long entry = offset + 2 + 12L * i;
+                final int tag = u16(entry);
+                final int type = u16(entry + 2);
+                if (tag == TAG_ORIENTATION && type == TYPE_SHORT)
+                {
+                    orientation = u16(entry + 8);
+                }
+                else if (tag == TAG_DATETIME && type == TYPE_ASCII)
+                {
+                    dateTime = ascii(entry);
+                }
+                else if (tag == TAG_GPS_IFD && type == TYPE_LONG)
+                {
+                    gpsOffset = u32(entry + 8);
+                }
+            }
+            return gpsOffset;
+        }
+
+        private void readGpsIfd(final long offset)
+        {
+            String latitudeRef = null;
+            String longitudeRef = null;
+            double latitudeValue = 0;
+            double longitudeValue = 0;
+            final int count = u16(offset);
+            for (int i = 0; i < count; i++)
+            {
+                final long entry = offset + 2 + 12L * i;
+                final int tag = u16(entry);
+                final int type = u16(entry + 2);
+                if (tag == TAG_GPS_LATITUDE_REF && type == TYPE_ASCII)
+                {
+                    latitudeRef = ascii(entry);
+                }
+                else if (tag == TAG_GPS_LONGITUDE_REF && type == TYPE_ASCII)
+                {
+                    longitudeRef = ascii(entry);
+                }
+                else if (tag == TAG_GPS_LATITUDE && type == TYPE_RATIONAL && u32(entry + 4) == 3)
+                {
+                    latitudeValue = degrees(u32(entry + 8));
+                    hasLatitude = true;
+                }
+                else if (tag == TAG_GPS_LONGITUDE && type == TYPE_RATIONAL && u32(entry + 4) == 3)
+                {
+                    longitudeValue = degrees(u32(entry + 8));
+                    hasLongitude = true;
+                }
+            }
+            latitude = "S".equals(latitudeRef) ? -latitudeValue : latitudeValue;
+            longitude = "W".equals(longitudeRef) ? -longitudeValue : longitudeValue;
+        }
+
+        /**
+         * Degrees, minutes and seconds as three rationals
+         */
+        private double degrees(final long offset)
+        {
+            return rational(offset) + rational(offset + 8) / 60d + rational(offset + 16) / 3600d;
+        }
+
+        private double rational(final long offset)
+        {
+            final long denominator = u32(offset + 4);
+            return denominator == 0 ? 0d : (double) u32(offset) / denominator;
+        }
+
+        private @NonNull String ascii(final long entry)
+        {
+            final long count = u32(entry + 4);
+            if (count > end - tiffStart)
+            {
+                throw new IndexOutOfBoundsException("Exif string longer than the segment");
+            }
+            // up to 4 bytes are stored in the entry itself
+            final int offset = count <= 4
+                    ? checked(tiffStart + entry + 8, (int) count)
+                    : checked(tiffStart + u32(entry + 8), (int) count);
+            int length = (int) count;
+            while (length > 0 && data[offset + length - 1] == 0)
+            {
+                length--;
+            }
+            return new String(data, offset, length, US_ASCII);
+        }
+
+        private int u16(final long offset)
+        {
+            return readUnsignedShort(data, checked(tiffStart + offset, 2), littleEndian);
+        }
+
+        private long u32(final long offset)
+        {
+            return readUnsignedInt(data, checked(tiffStart + offset, 4), littleEndian);
+        }
+
+        /**
+         * @return absolute position of size bytes which must lie within the segment
+         */
+        private int checked(final long position,
+                            final int size)
+        {
+            if (position < tiffStart || position + size > end)
+            {
+                throw new IndexOutOfBoundsException("Exif offset out of the segment");
+            }
+            return (int) position;
+        }
+    }
+}
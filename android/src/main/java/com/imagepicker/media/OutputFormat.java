@@ -0,0 +1,64 @@
+package com.imagepicker.media;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Formats a processed image can be encoded to, as named by the outputFormat option
+ */
+public enum OutputFormat
+{
+    JPEG("jpeg", "jpg", "image/jpeg", false),
+    PNG("png", "png", "image/png", true),
+    WEBP_LOSSY("webp", "webp", "image/webp", false),
+    WEBP_LOSSLESS("webp-lossless", "webp", "image/webp", true),
+    HEIF("heif", "heic", "image/heif", false);
+
+    public final @NonNull String option;
+    public final @NonNull String extension;
+    public final @NonNull String mimeType;
+    public final boolean lossless;
+
+    OutputFormat(@NonNull final String option,
+                 @NonNull final String extension,
+                 @NonNull final String mimeType,
+                 final boolean lossless)
+    {
+        this.option = option;
+        this.extension = extension;
+        this.mimeType = mimeType;
+        this.lossless = lossless;
+    }
+
+    /**
+     * @return the format named by the option, null if there isn't one
+     */
+    public static @Nullable OutputFormat fromOption(@Nullable final String option)
+    {
+        for (OutputFormat format : values())
+        {
+            if (format.option.equalsIgnoreCase(option))
+            {
+                return format;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Whether an image of mimeType is already in this format, so it can be passed through
+     */
+    public boolean matches(@Nullable final String mimeType)
+    {
+        if (this == WEBP_LOSSY || this == WEBP_LOSSLESS)
+        {
+            // the container doesn't tell which compression is inside
+            return "image/webp".equals(mimeType);
+        }
+        if (this == HEIF)
+        {
+            return "image/heif".equals(mimeType) || "image/heic".equals(mimeType);
+        }
+        return this.mimeType.equals(mimeType);
+    }
+}
@@ -0,0 +1,81 @@
+package com.imagepicker.media;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.facebook.react.bridge.ReadableMap;
+import com.imagepicker.utils.ResizeUtils;
+
+/**
+ * One rendition requested through the outputs option: its size limits, format and quality
+ */
+public class OutputVariant
+{
+    public final @Nullable String name;
+    public final int maxWidth;
+    public final int maxHeight;
+    public final int quality;
+    public final @NonNull OutputFormat outputFormat;
+
+    public OutputVariant(@Nullable final String name,
+                         final int maxWidth,
+                         final int maxHeight,
+                         final int quality,
+                         @NonNull final OutputFormat outputFormat)
+    {
+        this.name = name;
+        this.maxWidth = maxWidth;
+        this.maxHeight = maxHeight;
+        this.quality = quality;
+        this.outputFormat = outputFormat;
+    }
+
+    /**
+     * @param defaultQuality used if the variant has no quality, 0-100
+     * @param defaultFormat used if the variant has no outputFormat
+     */
+    public static @NonNull OutputVariant fromOptions(@NonNull final ReadableMap options,
+                                                     final int defaultQuality,
+                                                     @NonNull final OutputFormat defaultFormat)
+    {
+        String name = null;
+        if (options.hasKey("name") && !options.isNull("name"))
+        {
+            name = options.getString("name");
+        }
+        int maxWidth = 0;
+        if (options.hasKey("maxWidth"))
+        {
+            maxWidth = (int) options.getDouble("maxWidth");
+        }
+        int maxHeight = 0;
+        if (options.hasKey("maxHeight"))
+        {
+            maxHeight = (int) options.getDouble("maxHeight");
+        }
+        int quality = defaultQuality;
+        if (options.hasKey("quality"))
+        {
+            quality = (int) (options.getDouble("quality") * 100);
+        }
+        OutputFormat outputFormat = defaultFormat;
+        if (options.hasKey("outputFormat") && !options.isNull("outputFormat"))
+        {
+            final OutputFormat requested = OutputFormat.fromOption(options.getString("outputFormat"));
+            if (requested != null)
+            {
+                outputFormat = requested;
+            }
+        }
+        return new OutputVariant(name, maxWidth, maxHeight, quality, outputFormat);
+    }
+
+    /**
+     * @return {width, height} of this variant of a width x height image, see {@link ResizeUtils#calculateTargetSize}
+     */
+    public int[] calculateTargetSize(final int width,
+                                     final int height)
+    {
+        return ResizeUtils.calculateTargetSize(width, height, maxWidth, maxHeight);
+    }
+}
@@ -1,9 +1,69 @@
 package com.imagepicker.media;
 
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.facebook.react.bridge.ReadableMap;
+
 /**
  * Created by rusfearuth on 16.03.17.
  */
 
 public class VideoConfig
 {
+    public static final int DEFAULT_POSTER_SIZE = 512;
+
+    /**
+     * Size, format and quality of the poster frame, null if none is requested
+     */
+    public final @Nullable OutputVariant poster;
+
+    /**
+     * Position of the poster frame, the sync frame at or before it is taken
+     */
+    public final long posterTimeUs;
+
+    public VideoConfig(@Nullable final OutputVariant poster,
+                       final long posterTimeUs)
+    {
+        this.poster = poster;
+        this.posterTimeUs = posterTimeUs;
+    }
+
+    public @NonNull VideoConfig withPoster(@Nullable final OutputVariant poster)
+    {
+        return new VideoConfig(poster, this.posterTimeUs);
+    }
+
+    public @NonNull VideoConfig withPosterTimeUs(final long posterTimeUs)
+    {
+        return new VideoConfig(this.poster, posterTimeUs);
+    }
+
+    /**
+     * Reads posterFrame: {maxWidth, maxHeight, quality, outputFormat, time}, time in milliseconds.
+     * The poster falls back to the image quality and outputFormat options and to {@link #DEFAULT_POSTER_SIZE}.
+     */
+    public @NonNull VideoConfig updateFromOptions(@NonNull final ReadableMap options,
+                                                  @NonNull final ImageConfig imageConfig)
+    {
+        if (!options.hasKey("posterFrame") || options.isNull("posterFrame"))
+        {
+            return new VideoConfig(null, 0);
+        }
+        final ReadableMap posterOptions = options.getMap("posterFrame");
+        OutputVariant poster = OutputVariant.fromOptions(posterOptions,
+                imageConfig.quality, imageConfig.getOutputFormat());
+        if (poster.maxWidth == 0 && poster.maxHeight == 0)
+        {
+            poster = new OutputVariant(poster.name, DEFAULT_POSTER_SIZE, DEFAULT_POSTER_SIZE,
+                    poster.quality, poster.outputFormat);
+        }
+        long posterTimeUs = 0;
+        if (posterOptions.hasKey("time"))
+        {
+            posterTimeUs = (long) (posterOptions.getDouble("time") * 1000);
+        }
+        return new VideoConfig(poster, posterTimeUs);
+    }
 }
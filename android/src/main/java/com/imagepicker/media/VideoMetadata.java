@@ -0,0 +1,109 @@
+package com.imagepicker.media;
+
+import android.media.MediaMetadataRetriever;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.imagepicker.ResponseHelper;
+
+/**
+ * Immutable snapshot of a picked video's container metadata, read once through {@link MediaMetadataRetriever}.
+ * Unknown numbers are -1.
+ */
+public class VideoMetadata
+{
+    public final long duration;
+    public final int width;
+    public final int height;
+    public final int rotation;
+    public final int bitrate;
+    public final long fileSize;
+    public final @Nullable String mimeType;
+
+    public VideoMetadata(final long duration,
+                         final int width,
+                         final int height,
+                         final int rotation,
+                         final int bitrate,
+                         final long fileSize,
+                         @Nullable final String mimeType)
+    {
+        this.duration = duration;
+        this.width = width;
+        this.height = height;
+        this.rotation = rotation;
+        this.bitrate = bitrate;
+        this.fileSize = fileSize;
+        this.mimeType = mimeType;
+    }
+
+    /**
+     * @param retriever with its data source set already
+     * @param fileSize not part of the container, -1 if it isn't known
+     */
+    public static @NonNull VideoMetadata read(@NonNull final MediaMetadataRetriever retriever,
+                                              final long fileSize)
+    {
+        return new VideoMetadata(
+                parseLong(retriever.extractMetadata(MediaMetadataRetriever.METADATA_KEY_DURATION)),
+                (int) parseLong(retriever.extractMetadata(MediaMetadataRetriever.METADATA_KEY_VIDEO_WIDTH)),
+                (int) parseLong(retriever.extractMetadata(MediaMetadataRetriever.METADATA_KEY_VIDEO_HEIGHT)),
+                Math.max(0, (int) parseLong(retriever.extractMetadata(MediaMetadataRetriever.METADATA_KEY_VIDEO_ROTATION))),
+                (int) parseLong(retriever.extractMetadata(MediaMetadataRetriever.METADATA_KEY_BITRATE)),
+                fileSize,
+                retriever.extractMetadata(MediaMetadataRetriever.METADATA_KEY_MIMETYPE));
+    }
+
+    /**
+     * @return {width, height} as the video is displayed, with the rotation applied
+     */
+    public int[] getDisplaySize()
+    {
+        return rotation % 180 != 0
+                ? new int[] {height, width}
+                : new int[] {width, height};
+    }
+
+    public void putInto(@NonNull final ResponseHelper responseHelper)
+    {
+        if (duration >= 0)
+        {
+            responseHelper.putDouble("duration", duration);
+        }
+        if (width > 0 && height > 0)
+        {
+            final int[] displaySize = getDisplaySize();
+            responseHelper.putInt("width", displaySize[0]);
+            responseHelper.putInt("height", displaySize[1]);
+        }
+        responseHelper.putInt("originalRotation", rotation);
+        if (bitrate >= 0)
+        {
+            responseHelper.putInt("bitrate", bitrate);
+        }
+        if (fileSize >= 0)
+        {
+            responseHelper.putDouble("fileSize", fileSize);
+        }
+        if (mimeType != null)
+        {
+            responseHelper.putString("type", mimeType);
+        }
+    }
+
+    private static long parseLong(@Nullable final String value)
+    {
+        if (value == null)
+        {
+            return -1;
+        }
+        try
+        {
+            return Long.parseLong(value.trim());
+        }
+        catch (NumberFormatException e)
+        {
+            return -1;
+        }
+    }
+}
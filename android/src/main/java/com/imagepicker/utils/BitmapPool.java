@@ -0,0 +1,199 @@
+package com.imagepicker.utils;
+
+import android.graphics.Bitmap;
+import android.graphics.Color;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.LinkedList;
+import java.util.TreeMap;
+
+/**
+ * Pool of mutable bitmaps which are reused across picks, either as
+ * {@link android.graphics.BitmapFactory.Options#inBitmap} or as canvas targets.
+ *
+ * Bitmaps are bucketed by their allocation size and the pool never keeps more
+ * than maxBytes; the least recently returned bitmaps are recycled first.
+ */
+public class BitmapPool
+{
+    public static final long DEFAULT_MAX_BYTES = 32L * 1024 * 1024;
+
+    /**
+     * A pooled bitmap is used only if it isn't more than this times bigger than needed
+     */
+    private static final int MAX_SIZE_MULTIPLIER = 2;
+
+    private final long maxBytes;
+    private final TreeMap<Integer, LinkedList<Bitmap>> buckets = new TreeMap<>();
+    private final LinkedList<Bitmap> returnOrder = new LinkedList<>();
+    private long currentBytes;
+    private long hits;
+    private long misses;
+
+    public BitmapPool(final long maxBytes)
+    {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * @return a cleared pooled bitmap reconfigured to the requested size, or null if there isn't one big enough
+     */
+    public synchronized @Nullable Bitmap get(final int width,
+                                             final int height,
+                                             @NonNull final Bitmap.Config config)
+    {
+        final Bitmap bitmap = take(byteCount(width, height, config));
+        if (bitmap == null)
+        {
+            misses++;
+            return null;
+        }
+        hits++;
+        bitmap.reconfigure(width, height, config);
+        bitmap.eraseColor(Color.TRANSPARENT);
+        return bitmap;
+    }
+
+    /**
+     * @return a pooled bitmap whose allocation can hold at least minBytes, its size and content are undefined.
+     * Meant for {@link android.graphics.BitmapFactory.Options#inBitmap}, which reconfigures it.
+     */
+    public synchronized @Nullable Bitmap getForDecode(final long minBytes)
+    {
+        final Bitmap bitmap = take(minBytes);
+        if (bitmap == null)
+        {
+            misses++;
+            return null;
+        }
+        hits++;
+        return bitmap;
+    }
+
+    public @NonNull Bitmap getOrCreate(final int width,
+                                       final int height,
+                                       @NonNull final Bitmap.Config config)
+    {
+        final Bitmap bitmap = get(width, height, config);
+        return bitmap != null
+                ? bitmap
+                : Bitmap.createBitmap(width, height, config);
+    }
+
+    /**
+     * Give the bitmap back to the pool, the caller mustn't use it afterwards.
+     * Bitmaps which can't be reused are recycled.
+     */
+    public synchronized void put(@Nullable final Bitmap bitmap)
+    {
+        if (bitmap == null || bitmap.isRecycled())
+        {
+            return;
+        }
+        final int size = bitmap.getAllocationByteCount();
+        if (!bitmap.isMutable() || size > maxBytes)
+        {
+            bitmap.recycle();
+            return;
+        }
+        LinkedList<Bitmap> bucket = buckets.get(size);
+        if (bucket == null)
+        {
+            bucket = new LinkedList<>();
+            buckets.put(size, bucket);
+        }
+        bucket.add(bitmap);
+        returnOrder.add(bitmap);
+        currentBytes += size;
+        trimTo(maxBytes);
+    }
+
+    public synchronized void clear()
+    {
+        trimTo(0);
+    }
+
+    public synchronized long getHits()
+    {
+        return hits;
+    }
+
+    public synchronized long getMisses()
+    {
+        return misses;
+    }
+
+    public synchronized long getSize()
+    {
+        return currentBytes;
+    }
+
+    public long getMaxSize()
+    {
+        return maxBytes;
+    }
+
+    public static long byteCount(final int width,
+                                 final int height,
+                                 @NonNull final Bitmap.Config config)
+    {
+        final int bytesPerPixel;
+        switch (config)
+        {
+            case ALPHA_8:
+                bytesPerPixel = 1;
+                break;
+            case RGB_565:
+            case ARGB_4444:
+                bytesPerPixel = 2;
+                break;
+            case RGBA_F16:
+                bytesPerPixel = 8;
+                break;
+            default:
+                bytesPerPixel = 4;
+                break;
+        }
+        return (long) width * height * bytesPerPixel;
+    }
+
+    private @Nullable Bitmap take(final long minBytes)
+    {
+        if (minBytes > Integer.MAX_VALUE)
+        {
+            return null;
+        }
+        final Integer size = buckets.ceilingKey((int) minBytes);
+        if (size == null || size > minBytes * MAX_SIZE_MULTIPLIER)
+        {
+            return null;
+        }
+        final LinkedList<Bitmap> bucket = buckets.get(size);
+        final Bitmap bitmap = bucket.removeLast();
+        if (bucket.isEmpty())
+        {
+            buckets.remove(size);
+        }
+        returnOrder.remove(bitmap);
+        currentBytes -= size;
+        return bitmap;
+    }
+
+    private void trimTo(final long bytes)
+    {
+        while (currentBytes > bytes && !returnOrder.isEmpty())
+        {
+            final Bitmap bitmap = returnOrder.removeFirst();
+            final int size = bitmap.getAllocationByteCount();
+            final LinkedList<Bitmap> bucket = buckets.get(size);
+            bucket.remove(bitmap);
+            if (bucket.isEmpty())
+            {
+                buckets.remove(size);
+            }
+            currentBytes -= size;
+            bitmap.recycle();
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.imagepicker.utils;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+
+/**
+ * A pooled bitmap was rejected as {@link android.graphics.BitmapFactory.Options#inBitmap} after the
+ * decode had consumed the stream. The source has to be opened again and decoded without reuse.
+ */
+public class BitmapReuseException extends IOException
+{
+    public BitmapReuseException(@NonNull final Throwable cause)
+    {
+        super("The pooled bitmap couldn't be decoded into", cause);
+    }
+}
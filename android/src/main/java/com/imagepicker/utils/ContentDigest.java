@@ -0,0 +1,92 @@
+package com.imagepicker.utils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.IOException;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Hex digests of picked and processed images, taken from the bytes while they are read or written anyway
+ */
+public class ContentDigest
+{
+    public static final String SHA_256 = "SHA-256";
+    public static final String MD5 = "MD5";
+
+    private static final int DRAIN_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * @param option value of the digest option, 'sha256' or 'md5'
+     * @return the {@link MessageDigest} algorithm, null if the option is unknown
+     */
+    public static @Nullable String getAlgorithm(@Nullable final String option)
+    {
+        if ("sha256".equalsIgnoreCase(option) || SHA_256.equalsIgnoreCase(option))
+        {
+            return SHA_256;
+        }
+        if (MD5.equalsIgnoreCase(option))
+        {
+            return MD5;
+        }
+        return null;
+    }
+
+    /**
+     * @param algorithm one of {@link #getAlgorithm}, every Android version has them
+     */
+    public static @NonNull MessageDigest create(@NonNull final String algorithm)
+    {
+        try
+        {
+            return MessageDigest.getInstance(algorithm);
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new IllegalArgumentException("Unsupported digest " + algorithm, e);
+        }
+    }
+
+    /**
+     * @return hex digest of length bytes of data
+     */
+    public static @NonNull String digest(@NonNull final String algorithm,
+                                         @NonNull final byte[] data,
+                                         final int offset,
+                                         final int length)
+    {
+        final MessageDigest digest = create(algorithm);
+        digest.update(data, offset, length);
+        return toHex(digest.digest());
+    }
+
+    /**
+     * Reads what the consumer of the stream has left, a decoder may stop at the end of the image data.
+     * It continues the same read, the stream isn't read again.
+     *
+     * @return hex digest of everything the stream has delivered
+     */
+    public static @NonNull String finish(@NonNull final DigestInputStream stream) throws IOException
+    {
+        final byte[] buffer = new byte[DRAIN_BUFFER_SIZE];
+        while (stream.read(buffer) != -1)
+        {
+            // only the digest needs the bytes
+        }
+        return toHex(stream.getMessageDigest().digest());
+    }
+
+    public static @NonNull String toHex(@NonNull final byte[] digest)
+    {
+        final StringBuilder hex = new StringBuilder(digest.length * 2);
+        for (byte b : digest)
+        {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16))
+                    .append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+}
@@ -0,0 +1,41 @@
+package com.imagepicker.utils;
+
+import androidx.annotation.NonNull;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Counts the bytes written through it
+ */
+public class CountingOutputStream extends FilterOutputStream
+{
+    private long count;
+
+    public CountingOutputStream(@NonNull final OutputStream out)
+    {
+        super(out);
+    }
+
+    @Override
+    public void write(final int b) throws IOException
+    {
+        out.write(b);
+        count++;
+    }
+
+    @Override
+    public void write(@NonNull final byte[] b,
+                      final int off,
+                      final int len) throws IOException
+    {
+        out.write(b, off, len);
+        count += len;
+    }
+
+    public long getCount()
+    {
+        return count;
+    }
+}
@@ -0,0 +1,379 @@
+package com.imagepicker.utils;
+
+import android.util.Base64;
+import androidx.annotation.NonNull;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.ReactContext;
+import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.modules.core.DeviceEventManagerModule;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends image bytes to JS as a sequence of base64 chunks instead of one big string.
+ *
+ * Every chunk is an {@link #EVENT_DATA_CHUNK} device event with requestId, index, data and last.
+ * At most {@link #MAX_UNACKNOWLEDGED_CHUNKS} chunks are in flight, JS has to acknowledge
+ * each one through {@link #acknowledge(String)} before more are sent.
+ *
+ * Chunks are read and sent on the streamer's own thread when there is room in the window,
+ * no thread waits for the acknowledgements. A stream ends with an error if none arrives within
+ * {@link #ACK_TIMEOUT_SECONDS} or it is cancelled.
+ */
+public class DataStreamer
+{
+    public static final String EVENT_DATA_CHUNK = "ImagePickerDataChunk";
+    public static final int DEFAULT_CHUNK_SIZE = 3 * 64 * 1024;
+    public static final int MIN_CHUNK_SIZE = 3 * 1024;
+    public static final int MAX_UNACKNOWLEDGED_CHUNKS = 2;
+    public static final long ACK_TIMEOUT_SECONDS = 30;
+
+    private final ReactContext reactContext;
+    private final ScheduledThreadPoolExecutor executor;
+    private final ConcurrentHashMap<String, Stream> streams = new ConcurrentHashMap<>();
+
+    /**
+     * State of one request, only touched on the streamer's thread
+     */
+    private static class Stream
+    {
+        final String requestId;
+        final InputStream input;
+        final int chunkSize;
+        byte[] buffer;
+        byte[] nextBuffer;
+        int length = -1;
+        int index;
+        int unacknowledged;
+        boolean ended;
+        ScheduledFuture<?> timeout;
+
+        Stream(@NonNull final String requestId,
+               @NonNull final InputStream input,
+               final int chunkSize)
+        {
+            this.requestId = requestId;
+            this.input = input;
+            this.chunkSize = chunkSize;
+        }
+    }
+
+    public DataStreamer(@NonNull final ReactContext reactContext)
+    {
+        this.reactContext = reactContext;
+        this.executor = new ScheduledThreadPoolExecutor(1);
+        // a pending timeout mustn't keep the thread alive after shutdown
+        this.executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    }
+
+    /**
+     * @return chunkSize rounded down to a multiple of 3, so the base64 of the chunks can be concatenated
+     */
+    public static int normalizeChunkSize(final int chunkSize)
+    {
+        final int size = Math.max(MIN_CHUNK_SIZE, chunkSize);
+        return size - size % 3;
+    }
+
+    /**
+     * Start streaming the input and return right away, the input is closed once it's sent.
+     * Errors are reported through an event with an error field.
+     */
+    public void start(@NonNull final String requestId,
+                      @NonNull final InputStream input,
+                      final int chunkSize)
+    {
+        final Stream stream = new Stream(requestId, input, chunkSize);
+        final Stream previous = streams.put(requestId, stream);
+        try
+        {
+            executor.execute(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    if (previous != null)
+                    {
+                        end(previous);
+                    }
+                    sendAvailable(stream);
+                }
+            });
+        }
+        catch (RejectedExecutionException e)
+        {
+            streams.remove(requestId, stream);
+            closeInput(stream);
+        }
+    }
+
+    public void acknowledge(@NonNull final String requestId)
+    {
+        final Stream stream = streams.get(requestId);
+        if (stream == null)
+        {
+            return;
+        }
+        execute(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                if (stream.unacknowledged > 0)
+                {
+                    stream.unacknowledged--;
+                }
+                sendAvailable(stream);
+            }
+        });
+    }
+
+    /**
+     * Ends a running stream with an error event
+     *
+     * @return whether there was one
+     */
+    public boolean cancel(@NonNull final String requestId)
+    {
+        final Stream stream = streams.get(requestId);
+        if (stream == null)
+        {
+            return false;
+        }
+        execute(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                if (!stream.ended)
+                {
+                    emitError(stream.requestId, "Streaming was cancelled");
+                    end(stream);
+                }
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Ends every stream without further events and stops the streamer's thread
+     */
+    public void shutdown()
+    {
+        for (final Stream stream : streams.values())
+        {
+            execute(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    end(stream);
+                }
+            });
+        }
+        executor.shutdown();
+    }
+
+    /**
+     * Sends chunks while the window has room, then waits for an acknowledgement up to the timeout
+     */
+    private void sendAvailable(@NonNull final Stream stream)
+    {
+        if (stream.ended)
+        {
+            return;
+        }
+        if (stream.timeout != null)
+        {
+            stream.timeout.cancel(false);
+            stream.timeout = null;
+        }
+        try
+        {
+            if (stream.length == -1)
+            {
+                // the next chunk is read ahead to know whether the current one is the last
+                stream.buffer = new byte[stream.chunkSize];
+                stream.nextBuffer = new byte[stream.chunkSize];
+                stream.length = fill(stream.input, stream.buffer);
+            }
+            while (stream.unacknowledged < MAX_UNACKNOWLEDGED_CHUNKS)
+            {
+                final int nextLength = stream.length == stream.chunkSize ? fill(stream.input, stream.nextBuffer) : 0;
+                final boolean last = nextLength == 0;
+                emitChunk(stream.requestId, stream.index++,
+                        Base64.encodeToString(stream.buffer, 0, stream.length, Base64.NO_WRAP), last);
+                stream.unacknowledged++;
+                if (last)
+                {
+                    end(stream);
+                    return;
+                }
+                final byte[] sent = stream.buffer;
+                stream.buffer = stream.nextBuffer;
+                stream.nextBuffer = sent;
+                stream.length = nextLength;
+            }
+        }
+        catch (IOException e)
+        {
+            emitError(stream.requestId, e.getMessage());
+            end(stream);
+            return;
+        }
+        stream.timeout = executor.schedule(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                if (!stream.ended)
+                {
+                    emitError(stream.requestId, "Data chunk wasn't acknowledged");
+                    end(stream);
+                }
+            }
+        }, ACK_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private void end(@NonNull final Stream stream)
+    {
+        if (stream.ended)
+        {
+            return;
+        }
+        stream.ended = true;
+        streams.remove(stream.requestId, stream);
+        if (stream.timeout != null)
+        {
+            stream.timeout.cancel(false);
+        }
+        closeInput(stream);
+    }
+
+    private void execute(@NonNull final Runnable task)
+    {
+        try
+        {
+            executor.execute(task);
+        }
+        catch (RejectedExecutionException e)
+        {
+            // shut down, every stream has been ended
+        }
+    }
+
+    private static void closeInput(@NonNull final Stream stream)
+    {
+        try
+        {
+            stream.input.close();
+        }
+        catch (IOException e)
+        {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * @return the input, closing resource as well when it is closed
+     */
+    public static @NonNull InputStream closingAlso(@NonNull final InputStream input,
+                                                   @NonNull final Closeable resource)
+    {
+        return new FilterInputStream(input)
+        {
+            @Override
+            public void close() throws IOException
+            {
+                try
+                {
+                    super.close();
+                }
+                finally
+                {
+                    resource.close();
+                }
+            }
+        };
+    }
+
+    /**
+     * @return stream over the file which deletes it when closed
+     */
+    public static @NonNull InputStream deleteOnClose(@NonNull final File file) throws FileNotFoundException
+    {
+        return new FileInputStream(file)
+        {
+            @Override
+            public void close() throws IOException
+            {
+                try
+                {
+                    super.close();
+                }
+                finally
+                {
+                    file.delete();
+                }
+            }
+        };
+    }
+
+    private static int fill(@NonNull final InputStream input,
+                            @NonNull final byte[] buffer) throws IOException
+    {
+        int length = 0;
+        while (length < buffer.length)
+        {
+            final int read = input.read(buffer, length, buffer.length - length);
+            if (read == -1)
+            {
+                break;
+            }
+            length += read;
+        }
+        return length;
+    }
+
+    private void emitChunk(@NonNull final String requestId,
+                           final int index,
+                           @NonNull final String data,
+                           final boolean last)
+    {
+        final WritableMap event = Arguments.createMap();
+        event.putString("requestId", requestId);
+        event.putInt("index", index);
+        event.putString("data", data);
+        event.putBoolean("last", last);
+        emit(event);
+    }
+
+    private void emitError(@NonNull final String requestId,
+                           @NonNull final String error)
+    {
+        final WritableMap event = Arguments.createMap();
+        event.putString("requestId", requestId);
+        event.putString("error", error);
+        event.putBoolean("last", true);
+        emit(event);
+    }
+
+    private void emit(@NonNull final WritableMap event)
+    {
+        reactContext
+                .getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
+                .emit(EVENT_DATA_CHUNK, event);
+    }
+}
@@ -0,0 +1,25 @@
+package com.imagepicker.utils;
+
+import androidx.annotation.NonNull;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * ByteArrayOutputStream which gives access to its buffer, so the written bytes
+ * can be used without the copy made by {@link #toByteArray()}.
+ */
+public class ExposedByteArrayOutputStream extends ByteArrayOutputStream
+{
+    public ExposedByteArrayOutputStream(final int size)
+    {
+        super(size);
+    }
+
+    /**
+     * @return internal buffer, only the first {@link #size()} bytes are valid
+     */
+    public @NonNull byte[] getBuffer()
+    {
+        return buf;
+    }
+}
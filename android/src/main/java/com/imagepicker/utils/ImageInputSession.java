@@ -0,0 +1,250 @@
+package com.imagepicker.utils;
+
+import android.content.ContentResolver;
+import android.graphics.BitmapFactory;
+import android.net.Uri;
+import android.os.CancellationSignal;
+import android.os.ParcelFileDescriptor;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.imagepicker.media.ImageMetadata;
+import com.imagepicker.media.JpegHeaderParser;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Single read of a picked image.
+ *
+ * The source is opened once. Only its leading bytes are buffered, which is enough
+ * for EXIF and for decoding the dimensions; then the same stream (header + rest)
+ * is handed out once for the full decode. A source which is a file is also copied from
+ * the same descriptor, see {@link #copyTo}. It is only opened again for EXIF
+ * which isn't within the header, see {@link #readMetadata()}.
+ */
+public class ImageInputSession implements Closeable
+{
+    public static final int DEFAULT_HEADER_SIZE = 128 * 1024;
+    public static final int MAX_HEADER_SIZE = 1024 * 1024;
+
+    private final InputStream source;
+    /**
+     * Size of a source which can be read at any position, -1 for streams and pipes
+     */
+    private final long fileSize;
+    private final @Nullable ContentResolver contentResolver;
+    private final @Nullable Uri uri;
+    private byte[] header;
+    private int headerLength;
+    private boolean sourceExhausted;
+    private boolean streamTaken;
+
+    private ImageInputSession(@NonNull final InputStream source,
+                              final long fileSize,
+                              @Nullable final ContentResolver contentResolver,
+                              @Nullable final Uri uri)
+    {
+        this.source = source;
+        this.fileSize = fileSize;
+        this.contentResolver = contentResolver;
+        this.uri = uri;
+        this.header = new byte[0];
+    }
+
+    public static @NonNull ImageInputSession open(@NonNull final ContentResolver contentResolver,
+                                                  @NonNull final Uri uri) throws IOException
+    {
+        ParcelFileDescriptor descriptor = null;
+        try
+        {
+            descriptor = contentResolver.openFileDescriptor(uri, "r");
+        }
+        catch (FileNotFoundException e)
+        {
+            // some providers only hand out streams or a part of a file
+        }
+        if (descriptor != null)
+        {
+            return open(new ImageInputSession(new ParcelFileDescriptor.AutoCloseInputStream(descriptor),
+                    descriptor.getStatSize(), contentResolver, uri));
+        }
+        final InputStream source = contentResolver.openInputStream(uri);
+        if (source == null)
+        {
+            throw new FileNotFoundException("Could not find file");
+        }
+        return open(new ImageInputSession(source, -1, contentResolver, uri));
+    }
+
+    /**
+     * The source can't be opened again, EXIF is only read from its header
+     */
+    public static @NonNull ImageInputSession open(@NonNull final InputStream source) throws IOException
+    {
+        return open(new ImageInputSession(source, -1, null, null));
+    }
+
+    private static @NonNull ImageInputSession open(@NonNull final ImageInputSession session) throws IOException
+    {
+        try
+        {
+            session.fillHeader(DEFAULT_HEADER_SIZE);
+        }
+        catch (IOException e)
+        {
+            session.close();
+            throw e;
+        }
+        return session;
+    }
+
+    /**
+     * @return a new stream over the buffered leading bytes, it can be requested any number of times
+     */
+    public @NonNull InputStream getHeaderStream()
+    {
+        return new ByteArrayInputStream(header, 0, headerLength);
+    }
+
+    /**
+     * Decodes the image bounds from the buffered header. The header is grown up to
+     * {@link #MAX_HEADER_SIZE} when the dimensions aren't inside the default one.
+     *
+     * @return options with outWidth/outHeight/outMimeType filled in, outWidth is -1 if they are unknown
+     */
+    public @NonNull BitmapFactory.Options decodeBounds() throws IOException
+    {
+        final BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        while (true)
+        {
+            options.outWidth = -1;
+            options.outHeight = -1;
+            BitmapFactory.decodeStream(getHeaderStream(), null, options);
+            if (options.outWidth > 0 && options.outHeight > 0)
+            {
+                return options;
+            }
+            if (sourceExhausted || headerLength >= MAX_HEADER_SIZE)
+            {
+                return options;
+            }
+            fillHeader(Math.min(headerLength * 2, MAX_HEADER_SIZE));
+        }
+    }
+
+    /**
+     * Reads the metadata from the buffered header. JPEGs are scanned up to their SOF segment,
+     * other formats and JPEGs the scanner can't handle go through {@link android.media.ExifInterface} and a bounds decode.
+     * The EXIF of formats like HEIF may be stored after the header, then it is read from the whole source,
+     * which is opened once more for it.
+     */
+    public @NonNull ImageMetadata readMetadata() throws IOException
+    {
+        JpegHeaderParser.Result jpegHeader = JpegHeaderParser.parse(header, headerLength);
+        while (jpegHeader == null && JpegHeaderParser.isJpeg(header, headerLength)
+                && !sourceExhausted && headerLength < MAX_HEADER_SIZE)
+        {
+            // big APP segments like thumbnails or XMP may push the SOF further
+            fillHeader(Math.min(headerLength * 2, MAX_HEADER_SIZE));
+            jpegHeader = JpegHeaderParser.parse(header, headerLength);
+        }
+        if (jpegHeader != null && jpegHeader.width > 0 && jpegHeader.height > 0)
+        {
+            return ImageMetadata.fromJpegHeader(jpegHeader);
+        }
+
+        final BitmapFactory.Options options = decodeBounds();
+        ImageMetadata metadata = ImageMetadata.readIfPresent(getHeaderStream());
+        if (metadata == null && !sourceExhausted && contentResolver != null && uri != null)
+        {
+            try (InputStream whole = contentResolver.openInputStream(uri))
+            {
+                if (whole != null)
+                {
+                    metadata = ImageMetadata.readIfPresent(whole);
+                }
+            }
+        }
+        if (metadata == null)
+        {
+            metadata = ImageMetadata.withoutExif();
+        }
+        return metadata.withBounds(options.outWidth, options.outHeight, options.outMimeType);
+    }
+
+    /**
+     * @return the whole image, starting from the first byte. It can be taken only once.
+     */
+    public @NonNull InputStream openStream()
+    {
+        if (streamTaken)
+        {
+            throw new IllegalStateException("Image stream has been already consumed");
+        }
+        streamTaken = true;
+        if (sourceExhausted)
+        {
+            return getHeaderStream();
+        }
+        return new SequenceInputStream(getHeaderStream(), source);
+    }
+
+    /**
+     * Copies the whole source into destination by sendfile, without opening it again.
+     * The stream isn't moved, it can be read before or after.
+     *
+     * @return count of copied bytes, or -1 if the source isn't a file which can be read at any position
+     * @throws android.os.OperationCanceledException if the signal has been cancelled, destination is incomplete then
+     */
+    public long copyTo(@NonNull final File destination,
+                       @Nullable final CancellationSignal cancellationSignal) throws IOException
+    {
+        if (fileSize < 0 || !(source instanceof FileInputStream))
+        {
+            return -1;
+        }
+        try (FileChannel output = new FileOutputStream(destination).getChannel())
+        {
+            return MediaUtils.transferFile(((FileInputStream) source).getChannel(), fileSize, output, cancellationSignal);
+        }
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        source.close();
+    }
+
+    private void fillHeader(final int size) throws IOException
+    {
+        if (streamTaken)
+        {
+            throw new IllegalStateException("Image stream has been already consumed");
+        }
+        if (size > header.length)
+        {
+            header = Arrays.copyOf(header, size);
+        }
+        while (headerLength < size)
+        {
+            final int read = source.read(header, headerLength, size - headerLength);
+            if (read == -1)
+            {
+                sourceExhausted = true;
+                break;
+            }
+            headerLength += read;
+        }
+    }
+}
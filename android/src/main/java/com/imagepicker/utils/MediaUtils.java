@@ -1,26 +1,68 @@
 package com.imagepicker.utils;
 
+import android.content.ContentResolver;
 import android.content.Context;
+import android.database.Cursor;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
+import android.graphics.BitmapRegionDecoder;
+import android.graphics.Canvas;
 import android.graphics.Matrix;
-import android.media.ExifInterface;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.media.MediaMetadataRetriever;
+import android.net.Uri;
+import android.os.Build;
+import android.os.CancellationSignal;
 import android.os.Environment;
+import android.os.OperationCanceledException;
+import android.os.ParcelFileDescriptor;
+import android.provider.DocumentsContract;
+import android.provider.MediaStore;
+import android.provider.OpenableColumns;
+import android.system.ErrnoException;
+import android.system.Os;
+import android.util.Base64;
+import android.util.Base64OutputStream;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
 import com.facebook.react.bridge.ReadableMap;
-import com.imagepicker.ResponseHelper;
+import com.imagepicker.media.EncodedImage;
 import com.imagepicker.media.ImageConfig;
+import com.imagepicker.media.ImageEncoder;
+import com.imagepicker.media.ImageMetadata;
+import com.imagepicker.media.OutputVariant;
+import com.imagepicker.media.VideoMetadata;
 
-import java.io.ByteArrayOutputStream;
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
-import java.util.TimeZone;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static com.imagepicker.ImagePickerModule.REQUEST_LAUNCH_IMAGE_CAPTURE;
 
@@ -30,6 +72,28 @@ import static com.imagepicker.ImagePickerModule.REQUEST_LAUNCH_IMAGE_CAPTURE;
 
 public class MediaUtils
 {
+    /**
+     * Directory in the app's cache directory where processed images are written
+     */
+    public static final String OUTPUT_DIRECTORY = "ImagePicker";
+
+    /**
+     * Encodes {@link #encodeImageToMaxSize} may make before it gives up, every size step included
+     */
+    public static final int MAX_ENCODE_ATTEMPTS = 10;
+
+    /**
+     * Lowest quality searched for a size limit, below it the image is scaled down instead
+     */
+    public static final int MIN_SEARCH_QUALITY = 30;
+
+    /**
+     * Bytes {@link #copyContent} hands to the kernel at once, the cancellation is checked in between
+     */
+    private static final long COPY_CHUNK_SIZE = 8L * 1024 * 1024;
+
+    private static final Charset US_ASCII = Charset.forName("US-ASCII");
+
     public static @Nullable File createNewFile(@NonNull final Context reactContext,
                                                @NonNull final ReadableMap options,
                                                @NonNull final boolean forceLocal)
@@ -82,170 +146,1150 @@ public class MediaUtils
         return result;
     }
 
+    /**
+     * @return bytes of bitmaps {@link #getResizedImage} is expected to hold at the same time
+     */
+    public static long estimateResizeMemory(@NonNull final ImageConfig imageConfig,
+                                            @NonNull final ImageMetadata metadata)
+    {
+        final int[] targetSize = ResizeUtils.calculateTargetSize(metadata.width, metadata.height,
+                imageConfig.maxWidth, imageConfig.maxHeight);
+        final long estimate = ResizeUtils.estimateDecodeMemory(metadata.width, metadata.height,
+                targetSize[0], targetSize[1]);
+        // the tiled decode never holds more than the decode budget
+        return supportsRegionDecoding(metadata.mimeType)
+                ? Math.min(estimate, imageConfig.decodeMemoryBudget)
+                : estimate;
+    }
+
     /**
      * Create a resized image to fulfill the maxWidth/maxHeight, quality and rotation values
      *
      * @param imageInputStream
      * @param imageConfig
-     * @param initialWidth
-     * @param initialHeight
-     * @return updated ImageConfig
+     * @param metadata dimensions and mime type from the bounds decode
+     * @param encoder writes the output format, outputFile should have its extension
+     * @param bitmapPool every intermediate bitmap is taken from and returned to this pool
+     * @param outputFile file to encode into, the image is encoded to base64 if it's null
+     * @param cancellationSignal checked between the stages, a running decode is finished first
+     * @return the resized image, or null if it can't be decoded
+     * @throws OperationCanceledException if the signal has been cancelled
+     * @throws BitmapReuseException if the stream has to be opened again and decoded with a pool which doesn't reuse
      */
-    public static @NonNull Bitmap getResizedImage(@NonNull final InputStream imageInputStream,
-                                                       @NonNull final ImageConfig imageConfig,
-                                                       int initialWidth,
-                                                       int initialHeight)
+    public static @Nullable EncodedImage getResizedImage(@NonNull final InputStream imageInputStream,
+                                                         @NonNull final ImageConfig imageConfig,
+                                                         @NonNull final ImageMetadata metadata,
+                                                         @NonNull final ImageEncoder encoder,
+                                                         @NonNull final BitmapPool bitmapPool,
+                                                         @Nullable final File outputFile,
+                                                         @Nullable final CancellationSignal cancellationSignal) throws IOException
     {
-        BitmapFactory.Options imageOptions = new BitmapFactory.Options();
-        imageOptions.inScaled = false;
-        imageOptions.inSampleSize = 1;
+        final int[] targetSize = ResizeUtils.calculateTargetSize(metadata.width, metadata.height,
+                imageConfig.maxWidth, imageConfig.maxHeight);
+        Bitmap photo = decodeToTarget(imageInputStream, metadata, targetSize[0], targetSize[1],
+                imageConfig.decodeMemoryBudget, bitmapPool, cancellationSignal);
+        if (photo == null)
+        {
+            return null;
+        }
 
-        if (imageConfig.maxWidth != 0 || imageConfig.maxHeight != 0) {
-            while ((imageConfig.maxWidth == 0 || initialWidth > 2 * imageConfig.maxWidth) &&
-                   (imageConfig.maxHeight == 0 || initialHeight > 2 * imageConfig.maxHeight)) {
-                imageOptions.inSampleSize *= 2;
-                initialHeight /= 2;
-                initialWidth /= 2;
+        try
+        {
+            throwIfCanceled(cancellationSignal);
+            if (imageConfig.rotation % 360 != 0)
+            {
+                final Bitmap rotatedPhoto = rotate(photo, imageConfig.rotation, bitmapPool);
+                bitmapPool.put(photo);
+                photo = rotatedPhoto;
+                throwIfCanceled(cancellationSignal);
             }
+
+            if (imageConfig.maxFileSize > 0)
+            {
+                return encodeImageToMaxSize(photo, encoder, imageConfig.quality, imageConfig.maxFileSize,
+                        bitmapPool, outputFile, imageConfig.digest, cancellationSignal);
+            }
+            return outputFile != null
+                    ? encodeImageToFile(photo, encoder, imageConfig.quality, outputFile, imageConfig.digest)
+                    : encodeImageToBase64(photo, encoder, imageConfig.quality, imageConfig.digest);
         }
+        finally
+        {
+            bitmapPool.put(photo);
+        }
+    }
 
-        Bitmap photo = BitmapFactory.decodeStream(imageInputStream, null, imageOptions);
+    /**
+     * Encode the thumbnail the system keeps for the image instead of decoding it, see {@link ThumbnailLoader}.
+     * A thumbnail bigger than maxWidth/maxHeight is scaled down, one smaller than them isn't used.
+     *
+     * @param imageConfig rotation is the one of the stored image
+     * @param outputFile file to encode into, the image is encoded to base64 if it's null
+     * @return the encoded thumbnail, or null if the system has none which is big enough
+     * @throws OperationCanceledException if the signal has been cancelled
+     */
+    public static @Nullable EncodedImage getSystemThumbnail(@NonNull final ContentResolver contentResolver,
+                                                            @NonNull final Uri uri,
+                                                            @NonNull final ImageConfig imageConfig,
+                                                            @NonNull final ImageMetadata metadata,
+                                                            @NonNull final ImageEncoder encoder,
+                                                            @NonNull final BitmapPool bitmapPool,
+                                                            @Nullable final File outputFile,
+                                                            @Nullable final CancellationSignal cancellationSignal) throws IOException
+    {
+        if (metadata.width <= 0 || metadata.height <= 0)
+        {
+            return null;
+        }
+        // the limits apply to the stored image, thumbnails come upright
+        final int[] targetSize = ResizeUtils.calculateTargetSize(metadata.width, metadata.height,
+                imageConfig.maxWidth, imageConfig.maxHeight);
+        final boolean sideways = imageConfig.rotation % 180 != 0;
+        final int width = sideways ? targetSize[1] : targetSize[0];
+        final int height = sideways ? targetSize[0] : targetSize[1];
 
-        if (photo == null)
+        Bitmap thumbnail = ThumbnailLoader.loadSystemThumbnail(contentResolver, uri,
+                width, height, imageConfig.rotation, cancellationSignal);
+        if (thumbnail == null)
         {
             return null;
         }
+        try
+        {
+            if (thumbnail.getWidth() < width && thumbnail.getHeight() < height)
+            {
+                return null;
+            }
+            if (thumbnail.getWidth() > width || thumbnail.getHeight() > height)
+            {
+                final int[] size = ResizeUtils.calculateTargetSize(thumbnail.getWidth(), thumbnail.getHeight(),
+                        width, height);
+                final Bitmap scaled = bitmapPool.getOrCreate(size[0], size[1], Bitmap.Config.ARGB_8888);
+                new Canvas(scaled).drawBitmap(thumbnail, null,
+                        new Rect(0, 0, size[0], size[1]), new Paint(Paint.FILTER_BITMAP_FLAG));
+                bitmapPool.put(thumbnail);
+                thumbnail = scaled;
+            }
+            throwIfCanceled(cancellationSignal);
+            return outputFile != null
+                    ? encodeImageToFile(thumbnail, encoder, imageConfig.quality, outputFile, imageConfig.digest)
+                    : encodeImageToBase64(thumbnail, encoder, imageConfig.quality, imageConfig.digest);
+        }
+        finally
+        {
+            bitmapPool.put(thumbnail);
+        }
+    }
 
-        ImageConfig result = imageConfig;
+    /**
+     * Grab the frame at timeUs, or the closest sync frame before it, as the video's poster.
+     * From O_MR1 on the frame is decoded straight to the poster size.
+     *
+     * @param retriever with its data source set already
+     * @param outputFile file to encode into, the frame is encoded to base64 if it's null
+     * @return the encoded frame, or null if the video has none
+     * @throws OperationCanceledException if the signal has been cancelled
+     */
+    public static @Nullable EncodedImage getPosterFrame(@NonNull final MediaMetadataRetriever retriever,
+                                                        @NonNull final OutputVariant poster,
+                                                        final long timeUs,
+                                                        @NonNull final VideoMetadata metadata,
+                                                        @NonNull final BitmapPool bitmapPool,
+                                                        @Nullable final File outputFile,
+                                                        @Nullable final CancellationSignal cancellationSignal) throws IOException
+    {
+        final int[] displaySize = metadata.getDisplaySize();
+        Bitmap frame;
+        if (displaySize[0] > 0 && displaySize[1] > 0 && Build.VERSION.SDK_INT >= Build.VERSION_CODES.O_MR1)
+        {
+            final int[] targetSize = poster.calculateTargetSize(displaySize[0], displaySize[1]);
+            frame = retriever.getScaledFrameAtTime(timeUs, MediaMetadataRetriever.OPTION_PREVIOUS_SYNC,
+                    targetSize[0], targetSize[1]);
+        }
+        else
+        {
+            frame = retriever.getFrameAtTime(timeUs, MediaMetadataRetriever.OPTION_PREVIOUS_SYNC);
+        }
+        if (frame == null)
+        {
+            return null;
+        }
 
-        Bitmap scaledPhoto = null;
-        if (imageConfig.maxWidth == 0 || imageConfig.maxWidth > initialWidth)
+        try
         {
-            result = result.withMaxWidth(initialWidth);
+            throwIfCanceled(cancellationSignal);
+            // frames come rotated as displayed
+            final int[] size = poster.calculateTargetSize(frame.getWidth(), frame.getHeight());
+            if (size[0] != frame.getWidth() || size[1] != frame.getHeight())
+            {
+                final Bitmap scaled = bitmapPool.getOrCreate(size[0], size[1], Bitmap.Config.ARGB_8888);
+                new Canvas(scaled).drawBitmap(frame, null,
+                        new Rect(0, 0, size[0], size[1]), new Paint(Paint.FILTER_BITMAP_FLAG));
+                bitmapPool.put(frame);
+                frame = scaled;
+            }
+            final ImageEncoder encoder = ImageEncoder.forFormat(poster.outputFormat);
+            return outputFile != null
+                    ? encodeImageToFile(frame, encoder, poster.quality, outputFile, null)
+                    : encodeImageToBase64(frame, encoder, poster.quality, null);
         }
-        if (imageConfig.maxHeight == 0 || imageConfig.maxWidth > initialHeight)
+        finally
         {
-            result = result.withMaxHeight(initialHeight);
+            bitmapPool.put(frame);
         }
+    }
 
-        double widthRatio = (double) result.maxWidth / initialWidth;
-        double heightRatio = (double) result.maxHeight / initialHeight;
+    /**
+     * @return bytes of bitmaps {@link #getResizedImages} is expected to hold at the same time:
+     * the decode of the largest output, every smaller output and a rotated copy of each
+     */
+    public static long estimateOutputsMemory(@NonNull final ImageConfig imageConfig,
+                                             @NonNull final ImageMetadata metadata)
+    {
+        final int[][] targetSizes = calculateOutputSizes(imageConfig.outputs, metadata);
+        final int largest = largestSize(targetSizes);
+        final long estimate = ResizeUtils.estimateDecodeMemory(metadata.width, metadata.height,
+                targetSizes[largest][0], targetSizes[largest][1]);
+        long outputs = 0;
+        for (int[] size : targetSizes)
+        {
+            outputs += BitmapPool.byteCount(size[0], size[1], Bitmap.Config.ARGB_8888);
+        }
+        final long decode = supportsRegionDecoding(metadata.mimeType)
+                ? Math.min(estimate, imageConfig.decodeMemoryBudget)
+                : estimate;
+        return decode + (imageConfig.rotation % 360 != 0 ? 2 * outputs : outputs);
+    }
 
-        double ratio = (widthRatio < heightRatio)
-                ? widthRatio
-                : heightRatio;
+    /**
+     * Create every rendition of {@link ImageConfig#outputs} from a single decode. The image is decoded
+     * to the largest output, then the outputs are scaled down one from another in descending size,
+     * so each scale starts from the closest bigger bitmap. Rotating and encoding the outputs is handed
+     * to executor while the next one is scaled.
+     *
+     * @param outputFiles file to encode each output into, in the order of the outputs; null to encode to base64
+     * @param executor runs the encodes, the calling thread runs those no worker has taken up yet
+     * @return the outputs in the order they were requested, or null if the image can't be decoded
+     * @throws OperationCanceledException if the signal has been cancelled
+     * @throws BitmapReuseException as for {@link #getResizedImage}
+     */
+    public static @Nullable List<EncodedImage> getResizedImages(@NonNull final InputStream imageInputStream,
+                                                                @NonNull final ImageConfig imageConfig,
+                                                                @NonNull final ImageMetadata metadata,
+                                                                @NonNull final BitmapPool bitmapPool,
+                                                                @Nullable final List<File> outputFiles,
+                                                                @NonNull final Executor executor,
+                                                                @Nullable final CancellationSignal cancellationSignal) throws IOException
+    {
+        final List<OutputVariant> outputs = imageConfig.outputs;
+        final int[][] targetSizes = calculateOutputSizes(outputs, metadata);
+        final Integer[] order = new Integer[outputs.size()];
+        for (int i = 0; i < order.length; i++)
+        {
+            order[i] = i;
+        }
+        Arrays.sort(order, new Comparator<Integer>()
+        {
+            @Override
+            public int compare(final Integer first,
+                               final Integer second)
+            {
+                final long firstPixels = (long) targetSizes[first][0] * targetSizes[first][1];
+                final long secondPixels = (long) targetSizes[second][0] * targetSizes[second][1];
+                return firstPixels > secondPixels ? -1 : firstPixels == secondPixels ? 0 : 1;
+            }
+        });
 
-        Matrix matrix = new Matrix();
-        matrix.postRotate(result.rotation);
-        matrix.postScale((float) ratio, (float) ratio);
+        final Bitmap decoded = decodeToTarget(imageInputStream, metadata,
+                targetSizes[order[0]][0], targetSizes[order[0]][1],
+                imageConfig.decodeMemoryBudget, bitmapPool, cancellationSignal);
+        if (decoded == null)
+        {
+            return null;
+        }
 
-        ExifInterface exif;
+        final List<Bitmap> bitmaps = new ArrayList<>();
+        bitmaps.add(decoded);
+        final List<FutureTask<EncodedImage>> tasks = new ArrayList<>(
+                Collections.<FutureTask<EncodedImage>>nCopies(order.length, null));
+        final AtomicBoolean aborted = new AtomicBoolean();
         try
         {
-            imageInputStream.reset();
-            exif = new ExifInterface(imageInputStream);
+            Bitmap current = decoded;
+            for (int index : order)
+            {
+                throwIfCanceled(cancellationSignal);
+                final int[] size = targetSizes[index];
+                if (current.getWidth() != size[0] || current.getHeight() != size[1])
+                {
+                    final Bitmap scaled = bitmapPool.getOrCreate(size[0], size[1], Bitmap.Config.ARGB_8888);
+                    bitmaps.add(scaled);
+                    new Canvas(scaled).drawBitmap(current, null,
+                            new Rect(0, 0, size[0], size[1]), new Paint(Paint.FILTER_BITMAP_FLAG));
+                    current = scaled;
+                }
+                final FutureTask<EncodedImage> task = new FutureTask<>(new EncodeOutputTask(current,
+                        outputs.get(index), imageConfig.rotation,
+                        outputFiles != null ? outputFiles.get(index) : null,
+                        imageConfig.digest, bitmapPool, aborted, cancellationSignal));
+                tasks.set(index, task);
+                try
+                {
+                    executor.execute(task);
+                }
+                catch (RejectedExecutionException e)
+                {
+                    task.run();
+                }
+            }
 
-            int orientation = exif.getAttributeInt(ExifInterface.TAG_ORIENTATION, 0);
+            final List<EncodedImage> results = new ArrayList<>(tasks.size());
+            for (FutureTask<EncodedImage> task : tasks)
+            {
+                results.add(await(task));
+            }
+            return results;
+        }
+        catch (IOException | RuntimeException | Error e)
+        {
+            aborted.set(true);
+            throw e;
+        }
+        finally
+        {
+            // the bitmaps can go back to the pool only once no encode reads them anymore
+            for (FutureTask<EncodedImage> task : tasks)
+            {
+                if (task != null)
+                {
+                    task.run();
+                    try
+                    {
+                        task.get();
+                    }
+                    catch (InterruptedException e)
+                    {
+                        Thread.currentThread().interrupt();
+                    }
+                    catch (ExecutionException e)
+                    {
+                        // already reported by await
+                    }
+                }
+            }
+            for (Bitmap bitmap : bitmaps)
+            {
+                bitmapPool.put(bitmap);
+            }
+        }
+    }
+
+    /**
+     * @return {width, height} of every output, in the order of the outputs
+     */
+    private static int[][] calculateOutputSizes(@NonNull final List<OutputVariant> outputs,
+                                                @NonNull final ImageMetadata metadata)
+    {
+        final int[][] sizes = new int[outputs.size()][];
+        for (int i = 0; i < sizes.length; i++)
+        {
+            sizes[i] = outputs.get(i).calculateTargetSize(metadata.width, metadata.height);
+        }
+        return sizes;
+    }
 
-            switch (orientation)
+    private static int largestSize(@NonNull final int[][] sizes)
+    {
+        int largest = 0;
+        for (int i = 1; i < sizes.length; i++)
+        {
+            if ((long) sizes[i][0] * sizes[i][1] > (long) sizes[largest][0] * sizes[largest][1])
             {
-                case 6:
-                    matrix.postRotate(90);
-                    break;
-                case 3:
-                    matrix.postRotate(180);
-                    break;
-                case 8:
-                    matrix.postRotate(270);
-                    break;
+                largest = i;
             }
         }
-        catch (IOException e)
+        return largest;
+    }
+
+    /**
+     * Waits for the task, running it on this thread if it hasn't started yet, so that waiting
+     * on a busy executor from one of its own threads can't deadlock
+     */
+    private static @NonNull EncodedImage await(@NonNull final FutureTask<EncodedImage> task) throws IOException
+    {
+        task.run();
+        try
+        {
+            return task.get();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Image processing was interrupted");
+        }
+        catch (ExecutionException e)
+        {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException)
+            {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException)
+            {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error)
+            {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Rotates and encodes one output of {@link #getResizedImages}, the source bitmap is only read
+     */
+    private static class EncodeOutputTask implements Callable<EncodedImage>
+    {
+        private final Bitmap source;
+        private final OutputVariant output;
+        private final int rotation;
+        private final File outputFile;
+        private final String digestAlgorithm;
+        private final BitmapPool bitmapPool;
+        private final AtomicBoolean aborted;
+        private final CancellationSignal cancellationSignal;
+
+        EncodeOutputTask(@NonNull final Bitmap source,
+                         @NonNull final OutputVariant output,
+                         final int rotation,
+                         @Nullable final File outputFile,
+                         @Nullable final String digestAlgorithm,
+                         @NonNull final BitmapPool bitmapPool,
+                         @NonNull final AtomicBoolean aborted,
+                         @Nullable final CancellationSignal cancellationSignal)
+        {
+            this.source = source;
+            this.output = output;
+            this.rotation = rotation;
+            this.outputFile = outputFile;
+            this.digestAlgorithm = digestAlgorithm;
+            this.bitmapPool = bitmapPool;
+            this.aborted = aborted;
+            this.cancellationSignal = cancellationSignal;
+        }
+
+        @Override
+        public EncodedImage call() throws IOException
+        {
+            if (aborted.get())
+            {
+                throw new OperationCanceledException();
+            }
+            throwIfCanceled(cancellationSignal);
+            final Bitmap rotated = rotation % 360 != 0
+                    ? rotate(source, rotation, bitmapPool)
+                    : source;
+            try
+            {
+                final ImageEncoder encoder = ImageEncoder.forFormat(output.outputFormat);
+                return outputFile != null
+                        ? encodeImageToFile(rotated, encoder, output.quality, outputFile, digestAlgorithm)
+                        : encodeImageToBase64(rotated, encoder, output.quality, digestAlgorithm);
+            }
+            finally
+            {
+                if (rotated != source)
+                {
+                    bitmapPool.put(rotated);
+                }
+            }
+        }
+    }
+
+    /**
+     * Decode with {@link #decodeTiledToSize} if the image is too big for the memory budget and its format
+     * allows, otherwise with {@link #decodeToSize}
+     */
+    private static @Nullable Bitmap decodeToTarget(@NonNull final InputStream imageInputStream,
+                                                   @NonNull final ImageMetadata metadata,
+                                                   final int targetWidth,
+                                                   final int targetHeight,
+                                                   final long decodeMemoryBudget,
+                                                   @NonNull final BitmapPool bitmapPool,
+                                                   @Nullable final CancellationSignal cancellationSignal) throws BitmapReuseException
+    {
+        final boolean regionDecoding = supportsRegionDecoding(metadata.mimeType);
+        if (regionDecoding && ResizeUtils.estimateDecodeMemory(metadata.width, metadata.height,
+                targetWidth, targetHeight) > decodeMemoryBudget)
+        {
+            return decodeTiledToSize(imageInputStream, metadata.width, metadata.height,
+                    targetWidth, targetHeight, decodeMemoryBudget, bitmapPool, cancellationSignal);
+        }
+        return decodeToSize(imageInputStream, metadata.width, metadata.height,
+                targetWidth, targetHeight, regionDecoding, bitmapPool, cancellationSignal);
+    }
+
+    /**
+     * Decode the image straight to targetWidth x targetHeight: a power of two inSampleSize
+     * takes it close and density scaling lands on the target while decoding.
+     * Only a rounding difference is fixed up afterwards.
+     *
+     * @param reuseBitmap whether the decode may go into a pooled bitmap, only formats which support inBitmap
+     * @param cancellationSignal checked before and after decoding
+     * @throws BitmapReuseException if the pooled bitmap was rejected after the stream was read
+     */
+    public static @Nullable Bitmap decodeToSize(@NonNull final InputStream imageInputStream,
+                                                final int initialWidth,
+                                                final int initialHeight,
+                                                final int targetWidth,
+                                                final int targetHeight,
+                                                final boolean reuseBitmap,
+                                                @NonNull final BitmapPool bitmapPool,
+                                                @Nullable final CancellationSignal cancellationSignal) throws BitmapReuseException
+    {
+        throwIfCanceled(cancellationSignal);
+        final BitmapFactory.Options imageOptions = new BitmapFactory.Options();
+        imageOptions.inSampleSize = ResizeUtils.calculateInSampleSize(initialWidth, initialHeight,
+                targetWidth, targetHeight);
+
+        final int sampledWidth = ResizeUtils.sampledSize(initialWidth, imageOptions.inSampleSize);
+        final int sampledHeight = ResizeUtils.sampledSize(initialHeight, imageOptions.inSampleSize);
+        if (sampledWidth != targetWidth)
+        {
+            imageOptions.inScaled = true;
+            imageOptions.inDensity = sampledWidth;
+            imageOptions.inTargetDensity = targetWidth;
+        }
+        else
+        {
+            imageOptions.inScaled = false;
+        }
+
+        imageOptions.inMutable = true;
+        if (reuseBitmap)
+        {
+            // density scaling may round one pixel up
+            final long decodedBytes = imageOptions.inScaled
+                    ? BitmapPool.byteCount(targetWidth + 1, targetHeight + 1, Bitmap.Config.ARGB_8888)
+                    : BitmapPool.byteCount(sampledWidth, sampledHeight, Bitmap.Config.ARGB_8888);
+            final Bitmap candidate = bitmapPool.getForDecode(decodedBytes);
+            if (canDecodeInto(candidate, decodedBytes))
+            {
+                imageOptions.inBitmap = candidate;
+            }
+            else
+            {
+                bitmapPool.put(candidate);
+            }
+        }
+
+        Bitmap photo;
+        try
+        {
+            photo = BitmapFactory.decodeStream(imageInputStream, null, imageOptions);
+        }
+        catch (IllegalArgumentException e)
+        {
+            if (imageOptions.inBitmap == null)
+            {
+                throw e;
+            }
+            // the stream is consumed already, the caller has to open it again
+            bitmapPool.put(imageOptions.inBitmap);
+            throw new BitmapReuseException(e);
+        }
+
+        if (photo == null)
+        {
+            bitmapPool.put(imageOptions.inBitmap);
+            throwIfCanceled(cancellationSignal);
+            return null;
+        }
+
+        if (photo.getWidth() != targetWidth || photo.getHeight() != targetHeight)
+        {
+            final Bitmap adjusted = bitmapPool.getOrCreate(targetWidth, targetHeight, Bitmap.Config.ARGB_8888);
+            new Canvas(adjusted).drawBitmap(photo, null,
+                    new Rect(0, 0, targetWidth, targetHeight), new Paint(Paint.FILTER_BITMAP_FLAG));
+            bitmapPool.put(photo);
+            photo = adjusted;
+        }
+        return photo;
+    }
+
+    /**
+     * @return whether BitmapFactory accepts the bitmap as inBitmap for a decode of decodedBytes
+     */
+    private static boolean canDecodeInto(@Nullable final Bitmap bitmap,
+                                         final long decodedBytes)
+    {
+        return bitmap != null
+                && !bitmap.isRecycled()
+                && bitmap.isMutable()
+                && bitmap.getConfig() == Bitmap.Config.ARGB_8888
+                && bitmap.getAllocationByteCount() >= decodedBytes;
+    }
+
+    /**
+     * Decode the image in horizontal strips with {@link BitmapRegionDecoder} and draw each scaled
+     * strip into a preallocated targetWidth x targetHeight bitmap. Only one strip, sized to
+     * a quarter of memoryBudget, is decoded at a time. The signal is checked before every strip.
+     */
+    public static @Nullable Bitmap decodeTiledToSize(@NonNull final InputStream imageInputStream,
+                                                     final int initialWidth,
+                                                     final int initialHeight,
+                                                     final int targetWidth,
+                                                     final int targetHeight,
+                                                     final long memoryBudget,
+                                                     @NonNull final BitmapPool bitmapPool,
+                                                     @Nullable final CancellationSignal cancellationSignal)
+    {
+        BitmapRegionDecoder decoder = null;
+        Bitmap strip = null;
+        Bitmap output = null;
+        try
+        {
+            decoder = BitmapRegionDecoder.newInstance(imageInputStream, false);
+            final int inSampleSize = ResizeUtils.calculateInSampleSize(initialWidth, initialHeight,
+                    targetWidth, targetHeight);
+            final int stripHeight = ResizeUtils.calculateStripHeight(initialWidth, initialHeight,
+                    inSampleSize, memoryBudget / 4);
+
+            output = bitmapPool.getOrCreate(targetWidth, targetHeight, Bitmap.Config.ARGB_8888);
+            final Canvas canvas = new Canvas(output);
+            final Paint paint = new Paint(Paint.FILTER_BITMAP_FLAG);
+            final BitmapFactory.Options stripOptions = new BitmapFactory.Options();
+            stripOptions.inSampleSize = inSampleSize;
+            stripOptions.inMutable = true;
+            // a region decode keeps the size of its inBitmap and cuts off what doesn't fit,
+            // so the pooled strip is reconfigured to exactly one sampled strip
+            strip = bitmapPool.get(ResizeUtils.sampledSize(initialWidth, inSampleSize),
+                    ResizeUtils.sampledSize(stripHeight, inSampleSize),
+                    Bitmap.Config.ARGB_8888);
+
+            final Rect source = new Rect();
+            final Rect decoded = new Rect();
+            final Rect destination = new Rect();
+            for (int top = 0; top < initialHeight; top += stripHeight)
+            {
+                final int bottom = Math.min(initialHeight, top + stripHeight);
+                source.set(0, top, initialWidth, bottom);
+                final int[] rows = ResizeUtils.calculateStripDestination(top, bottom, initialHeight, targetHeight);
+                destination.set(0, rows[0], targetWidth, rows[1]);
+                if (destination.bottom == destination.top)
+                {
+                    continue;
+                }
+                throwIfCanceled(cancellationSignal);
+
+                stripOptions.inBitmap = strip;
+                strip = decoder.decodeRegion(source, stripOptions);
+                if (strip == null)
+                {
+                    bitmapPool.put(stripOptions.inBitmap);
+                    return null;
+                }
+                // the reused strip keeps its size, only the decoded part of it is drawn
+                final int[] region = ResizeUtils.calculateStripRegion(initialWidth, top, bottom, inSampleSize);
+                decoded.set(0, 0, region[0], region[1]);
+                canvas.drawBitmap(strip, decoded, destination, paint);
+            }
+
+            final Bitmap result = output;
+            output = null;
+            return result;
+        }
+        catch (IOException | IllegalArgumentException e)
         {
             e.printStackTrace();
+            return null;
         }
+        finally
+        {
+            bitmapPool.put(strip);
+            bitmapPool.put(output);
+            if (decoder != null)
+            {
+                decoder.recycle();
+            }
+        }
+    }
 
-        scaledPhoto = Bitmap.createBitmap(photo, 0, 0, photo.getWidth(), photo.getHeight(), matrix, true);
-        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
-        scaledPhoto.compress(Bitmap.CompressFormat.JPEG, result.quality, bytes);
+    /**
+     * Rotate into a pooled bitmap which bounds the rotated image, like
+     * {@link Bitmap#createBitmap(Bitmap, int, int, int, int, Matrix, boolean)} does
+     */
+    public static @NonNull Bitmap rotate(@NonNull final Bitmap source,
+                                         final int degrees,
+                                         @NonNull final BitmapPool bitmapPool)
+    {
+        final Matrix matrix = new Matrix();
+        matrix.postRotate(degrees);
+        final RectF bounds = new RectF(0, 0, source.getWidth(), source.getHeight());
+        matrix.mapRect(bounds);
+        matrix.postTranslate(-bounds.left, -bounds.top);
 
-        return scaledPhoto;
+        final Bitmap rotated = bitmapPool.getOrCreate(
+                Math.max(1, Math.round(bounds.width())),
+                Math.max(1, Math.round(bounds.height())),
+                Bitmap.Config.ARGB_8888);
+        new Canvas(rotated).drawBitmap(source, matrix, new Paint(Paint.FILTER_BITMAP_FLAG));
+        return rotated;
+    }
 
+    private static void throwIfCanceled(@Nullable final CancellationSignal cancellationSignal)
+    {
+        if (cancellationSignal != null)
+        {
+            cancellationSignal.throwIfCanceled();
+        }
     }
 
+    private static boolean supportsRegionDecoding(@Nullable final String mimeType)
+    {
+        return "image/jpeg".equals(mimeType) || "image/png".equals(mimeType) || "image/webp".equals(mimeType);
+    }
 
-    public static ReadExifResult readExifInterface(@NonNull InputStream inputStream, @NonNull ResponseHelper responseHelper)
+    /**
+     * Compress straight into a base64 encoder whose buffer is pre-sized from the estimated encoded size,
+     * so the only full-size copy is the resulting String
+     *
+     * @param digestAlgorithm of the digest taken from the encoded bytes on their way, null for none
+     */
+    public static @NonNull EncodedImage encodeImageToBase64(@NonNull final Bitmap bitmap,
+                                                            @NonNull final ImageEncoder encoder,
+                                                            final int quality,
+                                                            @Nullable final String digestAlgorithm) throws IOException
     {
-        ReadExifResult result;
-        int currentRotation = 0;
+        final long estimate = estimateEncodedSize(bitmap.getWidth(), bitmap.getHeight(),
+                encodedQuality(encoder, quality));
+        final ExposedByteArrayOutputStream base64Buffer = new ExposedByteArrayOutputStream(
+                (int) Math.min(base64Length(estimate), Integer.MAX_VALUE - 8));
+        final CountingOutputStream output = new CountingOutputStream(
+                new Base64OutputStream(base64Buffer, Base64.NO_WRAP));
+        final MessageDigest digest = digestAlgorithm != null ? ContentDigest.create(digestAlgorithm) : null;
+        try
+        {
+            if (!encoder.encode(bitmap, quality, withDigest(output, digest)))
+            {
+                throw new IOException("Could not encode the image");
+            }
+        }
+        finally
+        {
+            // flushes the last base64 quantum
+            output.close();
+        }
+        final String base64 = new String(base64Buffer.getBuffer(), 0, base64Buffer.size(), US_ASCII);
+        return EncodedImage.inBase64(bitmap.getWidth(), bitmap.getHeight(),
+                encoder.format, quality, base64, (int) output.getCount())
+                .withDigest(digest != null ? ContentDigest.toHex(digest.digest()) : null);
+    }
 
+    /**
+     * Encode the bitmap with the highest quality up to maxQuality whose output fits into maxFileSize,
+     * found by a {@link QualitySearch} over in-memory encodes of the same bitmap. If even
+     * {@link #MIN_SEARCH_QUALITY} doesn't fit, the bitmap is scaled down by the size ratio and searched again.
+     * At most {@link #MAX_ENCODE_ATTEMPTS} encodes are made in total.
+     *
+     * @param outputFile file to write into, the image is encoded to base64 if it's null
+     * @param digestAlgorithm of the digest taken from the chosen encode, null for none
+     * @return the image with the chosen quality and the number of encodes
+     * @throws IOException if nothing fits within the attempts
+     */
+    public static @NonNull EncodedImage encodeImageToMaxSize(@NonNull final Bitmap bitmap,
+                                                             @NonNull final ImageEncoder encoder,
+                                                             final int maxQuality,
+                                                             final long maxFileSize,
+                                                             @NonNull final BitmapPool bitmapPool,
+                                                             @Nullable final File outputFile,
+                                                             @Nullable final String digestAlgorithm,
+                                                             @Nullable final CancellationSignal cancellationSignal) throws IOException
+    {
+        final int bufferSize = (int) Math.min(maxFileSize + 1024,
+                estimateEncodedSize(bitmap.getWidth(), bitmap.getHeight(), encodedQuality(encoder, maxQuality)));
+        ExposedByteArrayOutputStream attempt = new ExposedByteArrayOutputStream(bufferSize);
+        ExposedByteArrayOutputStream best = new ExposedByteArrayOutputStream(bufferSize);
+        Bitmap current = bitmap;
+        int attempts = 0;
         try
         {
-            ExifInterface exif = new ExifInterface(inputStream);
+            while (attempts < MAX_ENCODE_ATTEMPTS)
+            {
+                // the quality does nothing for lossless formats, a single encode per size tells enough
+                final QualitySearch search = new QualitySearch(
+                        encoder.format.lossless ? maxQuality : Math.min(MIN_SEARCH_QUALITY, maxQuality),
+                        maxQuality, MAX_ENCODE_ATTEMPTS - attempts);
+                while (search.hasNext())
+                {
+                    throwIfCanceled(cancellationSignal);
+                    final int quality = search.next();
+                    attempt.reset();
+                    if (!encoder.encode(current, quality, attempt))
+                    {
+                        throw new IOException("Could not encode the image");
+                    }
+                    if (search.report(quality, attempt.size(), maxFileSize))
+                    {
+                        final ExposedByteArrayOutputStream fitting = attempt;
+                        attempt = best;
+                        best = fitting;
+                    }
+                }
+                attempts += search.getAttempts();
+
+                if (search.getBestQuality() >= 0)
+                {
+                    return writeEncoded(current, encoder, search.getBestQuality(), best, outputFile, digestAlgorithm)
+                            .withEncodeAttempts(attempts);
+                }
 
-            // extract lat, long, and timestamp and add to the response
-            float[] latlng = new float[2];
-            exif.getLatLong(latlng);
-            float latitude = latlng[0];
-            float longitude = latlng[1];
-            if(latitude != 0f || longitude != 0f)
+                final int[] size = ResizeUtils.calculateSizeForFileSize(current.getWidth(), current.getHeight(),
+                        search.getSmallestSize(), maxFileSize);
+                final Bitmap scaled = bitmapPool.getOrCreate(size[0], size[1], Bitmap.Config.ARGB_8888);
+                new Canvas(scaled).drawBitmap(current, null,
+                        new Rect(0, 0, size[0], size[1]), new Paint(Paint.FILTER_BITMAP_FLAG));
+                if (current != bitmap)
+                {
+                    bitmapPool.put(current);
+                }
+                current = scaled;
+            }
+        }
+        finally
+        {
+            if (current != bitmap)
             {
-                responseHelper.putDouble("latitude", latitude);
-                responseHelper.putDouble("longitude", longitude);
+                bitmapPool.put(current);
             }
+        }
+        throw new IOException("Could not encode the image within maxFileSize");
+    }
 
-            final String timestamp = exif.getAttribute(ExifInterface.TAG_DATETIME);
-            final SimpleDateFormat exifDatetimeFormat = new SimpleDateFormat("yyyy:MM:dd HH:mm:ss");
+    private static @NonNull EncodedImage writeEncoded(@NonNull final Bitmap bitmap,
+                                                      @NonNull final ImageEncoder encoder,
+                                                      final int quality,
+                                                      @NonNull final ExposedByteArrayOutputStream encoded,
+                                                      @Nullable final File outputFile,
+                                                      @Nullable final String digestAlgorithm) throws IOException
+    {
+        // the bytes are in memory already, the digest doesn't need another pass over a file
+        final String digest = digestAlgorithm != null
+                ? ContentDigest.digest(digestAlgorithm, encoded.getBuffer(), 0, encoded.size())
+                : null;
+        if (outputFile == null)
+        {
+            return EncodedImage.inBase64(bitmap.getWidth(), bitmap.getHeight(), encoder.format, quality,
+                    Base64.encodeToString(encoded.getBuffer(), 0, encoded.size(), Base64.NO_WRAP), encoded.size())
+                    .withDigest(digest);
+        }
+        try (OutputStream output = new FileOutputStream(outputFile))
+        {
+            output.write(encoded.getBuffer(), 0, encoded.size());
+        }
+        return EncodedImage.inFile(bitmap.getWidth(), bitmap.getHeight(), encoder.format, quality, outputFile)
+                .withDigest(digest);
+    }
 
-            final DateFormat isoFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss");
-            isoFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+    public static long base64Length(final long size)
+    {
+        return 4 * ((size + 2) / 3);
+    }
 
-            try
+    /**
+     * @param digestAlgorithm of the digest taken from the encoded bytes on their way, null for none
+     */
+    public static @NonNull EncodedImage encodeImageToFile(@NonNull final Bitmap bitmap,
+                                                          @NonNull final ImageEncoder encoder,
+                                                          final int quality,
+                                                          @NonNull final File file,
+                                                          @Nullable final String digestAlgorithm) throws IOException
+    {
+        final MessageDigest digest = digestAlgorithm != null ? ContentDigest.create(digestAlgorithm) : null;
+        try (OutputStream output = withDigest(new BufferedOutputStream(new FileOutputStream(file)), digest))
+        {
+            if (!encoder.encode(bitmap, quality, output))
             {
-                final String isoFormatString = new StringBuilder(isoFormat.format(exifDatetimeFormat.parse(timestamp)))
-                        .append("Z").toString();
-                responseHelper.putString("timestamp", isoFormatString);
+                throw new IOException("Could not encode the image");
             }
-            catch (Exception e) {}
+        }
+        return EncodedImage.inFile(bitmap.getWidth(), bitmap.getHeight(), encoder.format, quality, file)
+                .withDigest(digest != null ? ContentDigest.toHex(digest.digest()) : null);
+    }
 
-            int orientation = exif.getAttributeInt(ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL);
-            boolean isVertical = true;
-            switch (orientation) {
-                case ExifInterface.ORIENTATION_ROTATE_270:
-                    isVertical = false;
-                    currentRotation = 270;
-                    break;
-                case ExifInterface.ORIENTATION_ROTATE_90:
-                    isVertical = false;
-                    currentRotation = 90;
-                    break;
-                case ExifInterface.ORIENTATION_ROTATE_180:
-                    currentRotation = 180;
+    /**
+     * @return the stream, which also updates the digest if there is one
+     */
+    private static @NonNull OutputStream withDigest(@NonNull final OutputStream output,
+                                                    @Nullable final MessageDigest digest)
+    {
+        return digest != null
+                ? new DigestOutputStream(output, digest)
+                : output;
+    }
+
+    /**
+     * Create a new file for a processed image in the app's cache directory
+     *
+     * @param extension without the dot
+     */
+    public static @NonNull File createOutputFile(@NonNull final Context context,
+                                                 @NonNull final String extension) throws IOException
+    {
+        final File directory = new File(context.getCacheDir(), OUTPUT_DIRECTORY);
+        if (!directory.isDirectory() && !directory.mkdirs())
+        {
+            throw new IOException("Could not create " + directory);
+        }
+        final File file = new File(directory, new StringBuilder("image-")
+                .append(UUID.randomUUID().toString())
+                .append(".")
+                .append(extension)
+                .toString());
+        if (!file.createNewFile())
+        {
+            throw new IOException("Could not create " + file);
+        }
+        return file;
+    }
+
+    /**
+     * Create a new output file with the content of an earlier one: a hard link where the file system
+     * allows, a copy otherwise. Deleting or moving either file leaves the other one alone.
+     */
+    public static @NonNull File createOutputLink(@NonNull final Context context,
+                                                 @NonNull final File source,
+                                                 @NonNull final String extension) throws IOException
+    {
+        final File file = createOutputFile(context, extension);
+        // a link doesn't replace an existing file
+        file.delete();
+        try
+        {
+            Os.link(source.getPath(), file.getPath());
+            return file;
+        }
+        catch (ErrnoException e)
+        {
+            // not every file system has hard links
+        }
+        try (FileChannel input = new FileInputStream(source).getChannel();
+             FileChannel output = new FileOutputStream(file).getChannel())
+        {
+            final long size = input.size();
+            long copied = 0;
+            while (copied < size)
+            {
+                final long transferred = input.transferTo(copied, size - copied, output);
+                if (transferred <= 0)
+                {
                     break;
+                }
+                copied += transferred;
             }
-            responseHelper.putInt("originalRotation", currentRotation);
-            responseHelper.putBoolean("isVertical", isVertical);
-            result = new ReadExifResult(currentRotation, null);
         }
         catch (IOException e)
         {
-            e.printStackTrace();
-            result = new ReadExifResult(currentRotation, e);
+            file.delete();
+            throw e;
         }
+        return file;
+    }
 
-        return result;
+    /**
+     * Create a new file for a copy of picked content, in the app's cache or files directory
+     *
+     * @param keep whether it goes into the files directory, which isn't cleaned up
+     * @param extension without the dot
+     */
+    public static @NonNull File createCopyFile(@NonNull final Context context,
+                                               final boolean keep,
+                                               @NonNull final String extension) throws IOException
+    {
+        final File directory = new File(keep ? context.getFilesDir() : context.getCacheDir(), OUTPUT_DIRECTORY);
+        if (!directory.isDirectory() && !directory.mkdirs())
+        {
+            throw new IOException("Could not create " + directory);
+        }
+        final File file = new File(directory, new StringBuilder("copy-")
+                .append(UUID.randomUUID().toString())
+                .append(".")
+                .append(extension)
+                .toString());
+        if (!file.createNewFile())
+        {
+            throw new IOException("Could not create " + file);
+        }
+        return file;
     }
 
-    public static class ReadExifResult
+    /**
+     * Copies the content channel to channel. Between files the kernel copies it by sendfile,
+     * the bytes never pass through the Java heap.
+     *
+     * @return count of copied bytes
+     * @throws OperationCanceledException if the signal has been cancelled, destination is incomplete then
+     */
+    public static long copyContent(@NonNull final ContentResolver contentResolver,
+                                   @NonNull final Uri uri,
+                                   @NonNull final File destination,
+                                   @Nullable final CancellationSignal cancellationSignal) throws IOException
     {
-        public final int currentRotation;
-        public final Throwable error;
+        final ParcelFileDescriptor descriptor = contentResolver.openFileDescriptor(uri, "r", cancellationSignal);
+        if (descriptor == null)
+        {
+            throw new FileNotFoundException("Could not open " + uri);
+        }
+        try (ParcelFileDescriptor source = descriptor;
+             FileInputStream inputStream = new FileInputStream(source.getFileDescriptor());
+             FileChannel output = new FileOutputStream(destination).getChannel())
+        {
+            final long size = source.getStatSize();
+            if (size < 0)
+            {
+                // a pipe has no size and can't be positioned, its FileChannel can't be transferred from
+                return copyUntilEnd(Channels.newChannel(inputStream), output, cancellationSignal);
+            }
+            return transferFile(inputStream.getChannel(), size, output, cancellationSignal);
+        }
+    }
 
-        public ReadExifResult(int currentRotation,
-                              @Nullable final Throwable error)
+    /**
+     * Copies the first size bytes of a file by sendfile. The transfers are positional,
+     * where input is read by its stream is left as it is.
+     *
+     * @return count of copied bytes, less than size if the file has been shortened meanwhile
+     * @throws OperationCanceledException if the signal has been cancelled, output is incomplete then
+     */
+    public static long transferFile(@NonNull final FileChannel input,
+                                    final long size,
+                                    @NonNull final FileChannel output,
+                                    @Nullable final CancellationSignal cancellationSignal) throws IOException
+    {
+        long copied = 0;
+        while (copied < size)
         {
-            this.currentRotation = currentRotation;
-            this.error = error;
+            throwIfCanceled(cancellationSignal);
+            final long transferred = input.transferTo(copied, Math.min(COPY_CHUNK_SIZE, size - copied), output);
+            if (transferred <= 0)
+            {
+                break;
+            }
+            copied += transferred;
         }
+        return copied;
+    }
+
+    /**
+     * Copy a source without a size, like a pipe, until its end
+     *
+     * @param input not a {@link FileChannel}, transferring from one positions it and asks for its size
+     * @return bytes copied
+     */
+    public static long copyUntilEnd(@NonNull final ReadableByteChannel input,
+                                    @NonNull final FileChannel output,
+                                    @Nullable final CancellationSignal cancellationSignal) throws IOException
+    {
+        long copied = 0;
+        while (true)
+        {
+            throwIfCanceled(cancellationSignal);
+            // only stops short at the end of the input
+            final long transferred = output.transferFrom(input, copied, COPY_CHUNK_SIZE);
+            if (transferred <= 0)
+            {
+                return copied;
+            }
+            copied += transferred;
+        }
+    }
+
+    /**
+     * @return size of the content in bytes or -1 if the provider doesn't know it
+     */
+    public static long getFileSize(@NonNull final ContentResolver contentResolver,
+                                   @NonNull final Uri uri)
+    {
+        if (ContentResolver.SCHEME_FILE.equals(uri.getScheme()))
+        {
+            return new File(uri.getPath()).length();
+        }
+        try (Cursor cursor = contentResolver.query(uri, new String[] {OpenableColumns.SIZE}, null, null, null))
+        {
+            if (cursor != null && cursor.moveToFirst() && !cursor.isNull(0))
+            {
+                return cursor.getLong(0);
+            }
+        }
+        catch (RuntimeException e)
+        {
+            e.printStackTrace();
+        }
+        return -1;
+    }
+
+    /**
+     * @return time of the last change in ms or -1 if the provider doesn't know it
+     */
+    public static long getLastModified(@NonNull final ContentResolver contentResolver,
+                                       @NonNull final Uri uri)
+    {
+        if (ContentResolver.SCHEME_FILE.equals(uri.getScheme()))
+        {
+            final long lastModified = new File(uri.getPath()).lastModified();
+            return lastModified > 0 ? lastModified : -1;
+        }
+        // documents know it in ms, the media store in seconds
+        final long documentModified = queryLong(contentResolver, uri, DocumentsContract.Document.COLUMN_LAST_MODIFIED);
+        if (documentModified > 0)
+        {
+            return documentModified;
+        }
+        final long mediaModified = queryLong(contentResolver, uri, MediaStore.MediaColumns.DATE_MODIFIED);
+        return mediaModified > 0 ? mediaModified * 1000 : -1;
+    }
+
+    /**
+     * @return value of the column or -1 if the provider doesn't have it
+     */
+    private static long queryLong(@NonNull final ContentResolver contentResolver,
+                                  @NonNull final Uri uri,
+                                  @NonNull final String column)
+    {
+        try (Cursor cursor = contentResolver.query(uri, new String[] {column}, null, null, null))
+        {
+            if (cursor != null && cursor.moveToFirst() && !cursor.isNull(0))
+            {
+                return cursor.getLong(0);
+            }
+        }
+        catch (RuntimeException e)
+        {
+            // providers reject columns they don't know
+        }
+        return -1;
+    }
+
+    /**
+     * @return quality to estimate the encoded size from, lossless formats are sized like the highest quality
+     */
+    private static int encodedQuality(@NonNull final ImageEncoder encoder,
+                                      final int quality)
+    {
+        return encoder.format.lossless ? 100 : quality;
+    }
+
+    /**
+     * Rough upper estimate of the encoded size, from ~0.5 bits per pixel at low quality
+     * to ~4 bits per pixel at 100
+     */
+    public static int estimateEncodedSize(final int width,
+                                          final int height,
+                                          final int quality)
+    {
+        final double bitsPerPixel = 0.5 + 3.5 * Math.max(0, Math.min(quality, 100)) / 100d;
+        final long estimate = (long) (width * (long) height * bitsPerPixel / 8) + 1024;
+        return (int) Math.min(estimate, Integer.MAX_VALUE - 8);
     }
 }
@@ -0,0 +1,62 @@
+package com.imagepicker.utils;
+
+/**
+ * Bounds how many bytes of decoded bitmaps are held at the same time by concurrently processed images.
+ *
+ * An image reserves its estimated memory before decoding and gives it back when it's done,
+ * so a few huge images run one by one while many small ones run side by side.
+ */
+public class MemoryBudget
+{
+    /**
+     * Part of the max heap which is shared by the concurrent decodes
+     */
+    public static final int DEFAULT_HEAP_DIVISOR = 4;
+
+    private final long capacity;
+    private long available;
+
+    public MemoryBudget(final long capacity)
+    {
+        this.capacity = capacity;
+        this.available = capacity;
+    }
+
+    public static MemoryBudget fromHeap()
+    {
+        return new MemoryBudget(Runtime.getRuntime().maxMemory() / DEFAULT_HEAP_DIVISOR);
+    }
+
+    /**
+     * Blocks until the bytes are available. A request bigger than the whole budget
+     * waits for the entire budget instead, so it runs alone.
+     *
+     * @return bytes actually reserved, to be passed to {@link #release(long)}
+     */
+    public synchronized long acquire(final long bytes) throws InterruptedException
+    {
+        final long reserved = Math.max(0, Math.min(bytes, capacity));
+        while (available < reserved)
+        {
+            wait();
+        }
+        available -= reserved;
+        return reserved;
+    }
+
+    public synchronized void release(final long reserved)
+    {
+        available += reserved;
+        notifyAll();
+    }
+
+    public long getCapacity()
+    {
+        return capacity;
+    }
+
+    public synchronized long getAvailable()
+    {
+        return available;
+    }
+}
@@ -0,0 +1,60 @@
+package com.imagepicker.utils;
+
+import android.os.Process;
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Factory for the executor which runs decode/resize/encode work of the picker
+ * away from the UI thread.
+ */
+public class ProcessingExecutor
+{
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    public static @NonNull ExecutorService newDefault()
+    {
+        final int cpus = Runtime.getRuntime().availableProcessors();
+        return newFixed(Math.max(2, Math.min(cpus - 1, 4)));
+    }
+
+    /**
+     * @param threads Max number of images which are processed at the same time
+     * @return executor with background priority threads, idle threads are released after {@link #KEEP_ALIVE_SECONDS}
+     */
+    public static @NonNull ExecutorService newFixed(final int threads)
+    {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads,
+                KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(),
+                new BackgroundThreadFactory());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private static class BackgroundThreadFactory implements ThreadFactory
+    {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(@NonNull final Runnable runnable)
+        {
+            final Runnable prioritized = new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                    runnable.run();
+                }
+            };
+            return new Thread(prioritized, "ImagePicker-Processing-" + counter.incrementAndGet());
+        }
+    }
+}
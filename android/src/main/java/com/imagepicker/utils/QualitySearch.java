@@ -0,0 +1,97 @@
+package com.imagepicker.utils;
+
+/**
+ * Binary search for the highest encoder quality whose output fits into a size limit.
+ *
+ * The highest quality is tried first since it's the one which fits most of the time, then the lowest one
+ * so that a limit no quality can meet is known after two encodes. After that the range is halved
+ * with every attempt until it's empty or the attempts run out.
+ */
+public class QualitySearch
+{
+    private int low;
+    private int high;
+    private final int maxAttempts;
+    private int attempts;
+    private int bestQuality = -1;
+    private long smallestSize = Long.MAX_VALUE;
+
+    /**
+     * @param maxAttempts encodes this search may take, at least one
+     */
+    public QualitySearch(final int minQuality,
+                         final int maxQuality,
+                         final int maxAttempts)
+    {
+        this.low = Math.min(minQuality, maxQuality);
+        this.high = maxQuality;
+        this.maxAttempts = Math.max(1, maxAttempts);
+    }
+
+    public boolean hasNext()
+    {
+        return attempts < maxAttempts && low <= high;
+    }
+
+    /**
+     * @return quality to encode with next
+     */
+    public int next()
+    {
+        if (attempts == 0)
+        {
+            return high;
+        }
+        if (attempts == 1)
+        {
+            return low;
+        }
+        return (low + high + 1) / 2;
+    }
+
+    /**
+     * Narrows the range with the size the quality from {@link #next()} encoded to
+     *
+     * @return whether the attempt is the best fitting one so far
+     */
+    public boolean report(final int quality,
+                          final long size,
+                          final long maxSize)
+    {
+        attempts++;
+        smallestSize = Math.min(smallestSize, size);
+        if (size <= maxSize)
+        {
+            low = quality + 1;
+            if (quality > bestQuality)
+            {
+                bestQuality = quality;
+                return true;
+            }
+            return false;
+        }
+        high = quality - 1;
+        return false;
+    }
+
+    /**
+     * @return the highest quality which fitted, -1 if none did
+     */
+    public int getBestQuality()
+    {
+        return bestQuality;
+    }
+
+    public int getAttempts()
+    {
+        return attempts;
+    }
+
+    /**
+     * @return smallest size any attempt encoded to, the one at the lowest tried quality
+     */
+    public long getSmallestSize()
+    {
+        return smallestSize;
+    }
+}
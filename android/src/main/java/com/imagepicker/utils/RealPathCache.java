@@ -0,0 +1,115 @@
+package com.imagepicker.utils;
+
+import android.content.Context;
+import android.database.ContentObserver;
+import android.net.Uri;
+import android.provider.MediaStore;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded least recently used map of uris to the file paths {@link RealPathUtil} has queried for them
+ * from the media store.
+ *
+ * It is cleared whenever the media store reports a change, so a moved or deleted file doesn't keep its old path.
+ * A path queried while the cache was being cleared is dropped, see {@link #getGeneration()}.
+ */
+public class RealPathCache
+{
+    public static final int DEFAULT_MAX_ENTRIES = 256;
+
+    private final LinkedHashMap<String, String> paths;
+    private long generation;
+    private boolean observing;
+
+    public RealPathCache(final int maxEntries)
+    {
+        // access order, the least recently used entry is removed first
+        this.paths = new LinkedHashMap<String, String>(16, 0.75f, true)
+        {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest)
+            {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public synchronized @Nullable String get(@NonNull final String uri)
+    {
+        return paths.get(uri);
+    }
+
+    /**
+     * @param generation from {@link #getGeneration()} before the path has been queried
+     */
+    public synchronized void put(@NonNull final String uri,
+                                 @NonNull final String path,
+                                 final long generation)
+    {
+        if (generation == this.generation)
+        {
+            paths.put(uri, path);
+        }
+    }
+
+    /**
+     * @return count of the clears so far, a path queried in an older generation may be outdated
+     */
+    public synchronized long getGeneration()
+    {
+        return generation;
+    }
+
+    public synchronized void clear()
+    {
+        paths.clear();
+        generation++;
+    }
+
+    public synchronized int size()
+    {
+        return paths.size();
+    }
+
+    /**
+     * Clears the cache on every change of the media store from now on, the observer is registered once
+     */
+    public synchronized void observeMediaStore(@NonNull final Context context)
+    {
+        if (observing)
+        {
+            return;
+        }
+        observing = true;
+        try
+        {
+            context.getApplicationContext().getContentResolver().registerContentObserver(
+                    Uri.parse("content://" + MediaStore.AUTHORITY), true, new ContentObserver(null)
+                    {
+                        @Override
+                        public void onChange(boolean selfChange)
+                        {
+                            clear();
+                        }
+                    });
+        }
+        catch (SecurityException e)
+        {
+            // without notifications nothing can be cached safely
+            e.printStackTrace();
+            observing = false;
+        }
+    }
+
+    /**
+     * @return whether the paths are kept, only while changes of the media store are observed
+     */
+    public synchronized boolean isObserving()
+    {
+        return observing;
+    }
+}
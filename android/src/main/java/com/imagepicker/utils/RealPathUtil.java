@@ -17,6 +17,8 @@ import java.io.File;
 
 public class RealPathUtil {
 
+	private static final RealPathCache pathCache = new RealPathCache(RealPathCache.DEFAULT_MAX_ENTRIES);
+
 	public static @Nullable Uri compatUriFromFile(@NonNull final Context context,
 												  @NonNull final File file) {
 		Uri result = null;
@@ -36,10 +38,19 @@ public class RealPathUtil {
 		return result;
 	}
 
+	/**
+	 * Paths queried from the media store are cached until it changes, see {@link RealPathCache}.
+	 * Other providers don't notify about their changes, their paths are queried every time.
+	 */
 	@SuppressLint("NewApi")
 	public static @Nullable String getRealPathFromURI(@NonNull final Context context,
 													  @NonNull final Uri uri) {
 
+		final String cached = pathCache.get(uri.toString());
+		if (cached != null) {
+			return cached;
+		}
+
 		final boolean isKitKat = Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT;
 
 		// DocumentProvider
@@ -63,7 +74,7 @@ public class RealPathUtil {
 				final Uri contentUri = ContentUris.withAppendedId(
 						Uri.parse("content://downloads/public_downloads"), Long.valueOf(id));
 
-				return getDataColumn(context, contentUri, null, null);
+				return getCachedDataColumn(context, uri, contentUri, null, null);
 			}
 			// MediaProvider
 			else if (isMediaDocument(uri)) {
@@ -85,7 +96,7 @@ public class RealPathUtil {
 						split[1]
 				};
 
-				return getDataColumn(context, contentUri, selection, selectionArgs);
+				return getCachedDataColumn(context, uri, contentUri, selection, selectionArgs);
 			}
 		}
 		// MediaStore (and general)
@@ -98,7 +109,7 @@ public class RealPathUtil {
 			if (isFileProviderUri(context, uri))
 				return getFileProviderPath(context, uri);
 
-			return getDataColumn(context, uri, null, null);
+			return getCachedDataColumn(context, uri, uri, null, null);
 		}
 		// File
 		else if ("file".equalsIgnoreCase(uri.getScheme())) {
@@ -108,6 +119,30 @@ public class RealPathUtil {
 		return null;
 	}
 
+	/**
+	 * {@link #getDataColumn} through the path cache. Only media store paths are cached,
+	 * the cache is cleared on its changes alone.
+	 *
+	 * @param uri the cache key, the picked uri
+	 * @param contentUri the uri to query
+	 */
+	private static @Nullable String getCachedDataColumn(@NonNull final Context context,
+													   @NonNull final Uri uri,
+													   @NonNull final Uri contentUri,
+													   @Nullable final String selection,
+													   @Nullable final String[] selectionArgs) {
+		if (!MediaStore.AUTHORITY.equals(contentUri.getAuthority())) {
+			return getDataColumn(context, contentUri, selection, selectionArgs);
+		}
+		pathCache.observeMediaStore(context);
+		final long generation = pathCache.getGeneration();
+		final String path = getDataColumn(context, contentUri, selection, selectionArgs);
+		if (path != null && pathCache.isObserving()) {
+			pathCache.put(uri.toString(), path, generation);
+		}
+		return path;
+	}
+
 	/**
 	 * Get the value of the data column for this Uri. This is useful for
 	 * MediaStore Uris, and other file-based ContentProviders.
@@ -0,0 +1,140 @@
+package com.imagepicker.utils;
+
+/**
+ * Pure size math for resizing, shared by the decoders in {@link MediaUtils}.
+ */
+public class ResizeUtils
+{
+    public static final int BYTES_PER_PIXEL = 4;
+
+    /**
+     * Size which fits into maxWidth x maxHeight keeping the aspect ratio. The image is never upscaled.
+     *
+     * @param maxWidth 0 means no limit
+     * @param maxHeight 0 means no limit
+     * @return {width, height}
+     */
+    public static int[] calculateTargetSize(final int width,
+                                            final int height,
+                                            final int maxWidth,
+                                            final int maxHeight)
+    {
+        final double widthRatio = maxWidth > 0 && maxWidth < width
+                ? (double) maxWidth / width
+                : 1d;
+        final double heightRatio = maxHeight > 0 && maxHeight < height
+                ? (double) maxHeight / height
+                : 1d;
+        final double ratio = Math.min(widthRatio, heightRatio);
+
+        if (ratio >= 1d)
+        {
+            return new int[] {width, height};
+        }
+        return new int[] {
+                Math.max(1, (int) Math.round(width * ratio)),
+                Math.max(1, (int) Math.round(height * ratio))
+        };
+    }
+
+    /**
+     * @return the largest power of two sample size which still decodes at least targetWidth x targetHeight
+     */
+    public static int calculateInSampleSize(final int width,
+                                            final int height,
+                                            final int targetWidth,
+                                            final int targetHeight)
+    {
+        int inSampleSize = 1;
+        while (width / (inSampleSize * 2) >= targetWidth &&
+               height / (inSampleSize * 2) >= targetHeight)
+        {
+            inSampleSize *= 2;
+        }
+        return inSampleSize;
+    }
+
+    /**
+     * Size produced by decoding with inSampleSize, decoders round it up
+     */
+    public static int sampledSize(final int size,
+                                  final int inSampleSize)
+    {
+        return (size + inSampleSize - 1) / inSampleSize;
+    }
+
+    /**
+     * Bytes needed by {@link MediaUtils#decodeToSize}: the sampled ARGB_8888 frame plus the scaled one
+     */
+    public static long estimateDecodeMemory(final int width,
+                                            final int height,
+                                            final int targetWidth,
+                                            final int targetHeight)
+    {
+        final int inSampleSize = calculateInSampleSize(width, height, targetWidth, targetHeight);
+        final long sampled = (long) sampledSize(width, inSampleSize) * sampledSize(height, inSampleSize);
+        return BYTES_PER_PIXEL * (sampled + (long) targetWidth * targetHeight);
+    }
+
+    /**
+     * @return height in source pixels of a strip whose sampled ARGB_8888 bitmap fits into stripBudget,
+     * a multiple of inSampleSize and at least one sampled row
+     */
+    public static int calculateStripHeight(final int width,
+                                           final int height,
+                                           final int inSampleSize,
+                                           final long stripBudget)
+    {
+        final long rowBytes = BYTES_PER_PIXEL * (long) sampledSize(width, inSampleSize);
+        final long sampledRows = Math.max(1, stripBudget / rowBytes);
+        return (int) Math.min(height, sampledRows * inSampleSize);
+    }
+
+    /**
+     * A region decode writes into the top left of its inBitmap without resizing it, so a shorter
+     * last strip leaves the rows of the previous one below its own.
+     *
+     * @return {width, height} of the part of the strip bitmap decoded from source rows top to bottom
+     */
+    public static int[] calculateStripRegion(final int width,
+                                             final int top,
+                                             final int bottom,
+                                             final int inSampleSize)
+    {
+        return new int[] {sampledSize(width, inSampleSize), sampledSize(bottom - top, inSampleSize)};
+    }
+
+    /**
+     * @return {top, bottom} rows of the target which source rows top to bottom are drawn into,
+     * equal if the strip is too thin to cover a target row
+     */
+    public static int[] calculateStripDestination(final int top,
+                                                  final int bottom,
+                                                  final int height,
+                                                  final int targetHeight)
+    {
+        return new int[] {
+                (int) ((long) top * targetHeight / height),
+                (int) ((long) bottom * targetHeight / height)
+        };
+    }
+
+    /**
+     * Encoded size grows about linearly with the pixel count, so the sides are scaled by the square root
+     * of the size ratio with some margin.
+     *
+     * @return {width, height} whose encode is expected to fit into maxSize, at least 10% smaller than now
+     */
+    public static int[] calculateSizeForFileSize(final int width,
+                                                 final int height,
+                                                 final long encodedSize,
+                                                 final long maxSize)
+    {
+        final double ratio = Math.sqrt((double) maxSize / Math.max(1, encodedSize)) * 0.9d;
+        final double scale = Math.max(0.1d, Math.min(ratio, 0.9d));
+        return new int[] {
+                Math.max(1, (int) Math.round(width * scale)),
+                Math.max(1, (int) Math.round(height * scale))
+        };
+    }
+}
@@ -0,0 +1,314 @@
+package com.imagepicker.utils;
+
+import android.content.Context;
+import android.os.CancellationSignal;
+import android.os.OperationCanceledException;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.imagepicker.media.EncodedImage;
+import com.imagepicker.media.ImageConfig;
+import com.imagepicker.media.OutputFormat;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remembers the files processed images have been written to, so picking the same source
+ * with the same {@link ImageConfig} again reuses the earlier file instead of decoding it again.
+ * Callers hand out their own link to it, see {@link MediaUtils#createOutputLink}.
+ *
+ * A source is identified by its uri, last modification and size, an edited image gets a new key.
+ * The index is kept in a file next to the outputs, the least recently used entries are dropped beyond
+ * the max entry count. Their files are left to {@link TempFileManager}, a hit is only returned while its
+ * file still exists, and touching it on a hit keeps it from being evicted first.
+ *
+ * Requests for a key which is being processed wait for that result, see {@link #acquire}.
+ */
+public class ResultCache
+{
+    public static final int DEFAULT_MAX_ENTRIES = 64;
+
+    private static final String INDEX_FILE = "ImagePicker-results";
+    private static final long WAIT_POLL_MS = 50;
+    private static final String NO_DIGEST = "-";
+    private static final int INDEX_FIELDS = 11;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /**
+     * A processed image and how it has been produced
+     */
+    public static class Entry
+    {
+        public final @NonNull EncodedImage image;
+        public final boolean systemThumbnail;
+
+        /**
+         * Hex digest of the source, null if none has been asked for or the source hasn't been read
+         */
+        public final @Nullable String originalDigest;
+
+        public Entry(@NonNull final EncodedImage image,
+                     final boolean systemThumbnail)
+        {
+            this(image, systemThumbnail, null);
+        }
+
+        public Entry(@NonNull final EncodedImage image,
+                     final boolean systemThumbnail,
+                     @Nullable final String originalDigest)
+        {
+            this.image = image;
+            this.systemThumbnail = systemThumbnail;
+            this.originalDigest = originalDigest;
+        }
+    }
+
+    private final File indexFile;
+    private final int maxEntries;
+    private final ConcurrentHashMap<String, CountDownLatch> inFlight = new ConcurrentHashMap<>();
+    private @Nullable LinkedHashMap<String, Entry> entries;
+
+    public ResultCache(@NonNull final File indexFile,
+                       final int maxEntries)
+    {
+        this.indexFile = indexFile;
+        this.maxEntries = maxEntries;
+    }
+
+    public static @NonNull ResultCache forContext(@NonNull final Context context)
+    {
+        return new ResultCache(new File(context.getCacheDir(), INDEX_FILE), DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * @param source uri of the picked image
+     * @param lastModified in ms, see {@link MediaUtils#getLastModified}
+     * @param size in bytes, see {@link MediaUtils#getFileSize}
+     * @return hash of the source and config, null if the source can't be told apart from an edited version of it
+     */
+    public static @Nullable String createKey(@NonNull final String source,
+                                             final long lastModified,
+                                             final long size,
+                                             @NonNull final ImageConfig imageConfig)
+    {
+        if (lastModified <= 0 || size < 0)
+        {
+            return null;
+        }
+        final String key = new StringBuilder(source)
+                .append('\n').append(lastModified)
+                .append('\n').append(size)
+                .append('\n').append(imageConfig.getCacheKey())
+                .toString();
+        final byte[] bytes = key.getBytes(UTF_8);
+        return ContentDigest.digest(ContentDigest.SHA_256, bytes, 0, bytes.length);
+    }
+
+    /**
+     * @return the cached image if its file is still there
+     */
+    public synchronized @Nullable Entry get(@NonNull final String key)
+    {
+        final Entry entry = getEntries().get(key);
+        if (entry == null)
+        {
+            return null;
+        }
+        final File file = entry.image.file;
+        if (file == null || !file.isFile() || file.length() != entry.image.size)
+        {
+            getEntries().remove(key);
+            writeIndex();
+            return null;
+        }
+        // marks it as recently used for the cleanup
+        file.setLastModified(System.currentTimeMillis());
+        return entry;
+    }
+
+    public synchronized void put(@NonNull final String key,
+                                 @NonNull final Entry entry)
+    {
+        if (entry.image.file == null)
+        {
+            return;
+        }
+        final LinkedHashMap<String, Entry> entries = getEntries();
+        entries.put(key, entry);
+        trimToMaxEntries(entries);
+        writeIndex();
+    }
+
+    /**
+     * Returns the cached image, or makes the caller the one to process it. While a key is being processed
+     * other callers wait for it, when it fails one of them processes it instead.
+     *
+     * @return the cached image, or null if the caller has to process it and call {@link #release} afterwards
+     * @throws OperationCanceledException if the signal has been cancelled while waiting
+     */
+    public @Nullable Entry acquire(@NonNull final String key,
+                                   @Nullable final CancellationSignal cancellationSignal) throws InterruptedException
+    {
+        while (true)
+        {
+            final Entry cached = get(key);
+            if (cached != null)
+            {
+                return cached;
+            }
+            final CountDownLatch running = inFlight.putIfAbsent(key, new CountDownLatch(1));
+            if (running == null)
+            {
+                // it may have been released between the lookup and taking it over
+                final Entry released = get(key);
+                if (released != null)
+                {
+                    release(key, null);
+                }
+                return released;
+            }
+            while (!running.await(WAIT_POLL_MS, TimeUnit.MILLISECONDS))
+            {
+                if (cancellationSignal != null)
+                {
+                    cancellationSignal.throwIfCanceled();
+                }
+            }
+        }
+    }
+
+    /**
+     * Ends the processing of a key {@link #acquire} has handed to the caller
+     *
+     * @param entry the result or null if there is none, a waiting caller takes over then
+     */
+    public void release(@NonNull final String key,
+                        @Nullable final Entry entry)
+    {
+        if (entry != null)
+        {
+            put(key, entry);
+        }
+        final CountDownLatch running = inFlight.remove(key);
+        if (running != null)
+        {
+            running.countDown();
+        }
+    }
+
+    private void trimToMaxEntries(@NonNull final LinkedHashMap<String, Entry> entries)
+    {
+        while (entries.size() > maxEntries)
+        {
+            entries.remove(entries.keySet().iterator().next());
+        }
+    }
+
+    private @NonNull LinkedHashMap<String, Entry> getEntries()
+    {
+        if (entries == null)
+        {
+            // access order, the least recently used entry comes first
+            entries = new LinkedHashMap<>(16, 0.75f, true);
+            readIndex(entries);
+            trimToMaxEntries(entries);
+        }
+        return entries;
+    }
+
+    /**
+     * One entry per line: key, path, encoded size, width, height, format, quality, encode attempts,
+     * system thumbnail, digest and original digest. Missing digests are written as {@link #NO_DIGEST}.
+     * Lines of other lengths are older ones whose files can't be checked, they are processed again.
+     */
+    private void readIndex(@NonNull final Map<String, Entry> entries)
+    {
+        try (BufferedReader reader = new BufferedReader(new FileReader(indexFile)))
+        {
+            String line;
+            while ((line = reader.readLine()) != null)
+            {
+                final String[] fields = line.split("\t");
+                if (fields.length != INDEX_FIELDS)
+                {
+                    continue;
+                }
+                final OutputFormat format = OutputFormat.fromOption(fields[5]);
+                if (format == null)
+                {
+                    continue;
+                }
+                try
+                {
+                    // the size written then, not the current length of the file, see get()
+                    final EncodedImage image = EncodedImage.inFile(Integer.parseInt(fields[3]),
+                            Integer.parseInt(fields[4]), format, Integer.parseInt(fields[6]), new File(fields[1]),
+                            Integer.parseInt(fields[2]))
+                            .withEncodeAttempts(Integer.parseInt(fields[7]))
+                            .withDigest(readDigest(fields[9]));
+                    entries.put(fields[0], new Entry(image, Boolean.parseBoolean(fields[8]),
+                            readDigest(fields[10])));
+                }
+                catch (NumberFormatException e)
+                {
+                    // a damaged line, the image is processed again
+                }
+            }
+        }
+        catch (FileNotFoundException e)
+        {
+            // nothing cached yet
+        }
+        catch (IOException e)
+        {
+            e.printStackTrace();
+        }
+    }
+
+    private static @Nullable String readDigest(@NonNull final String field)
+    {
+        return NO_DIGEST.equals(field) ? null : field;
+    }
+
+    private void writeIndex()
+    {
+        try (Writer writer = new FileWriter(indexFile, false))
+        {
+            for (Map.Entry<String, Entry> cached : getEntries().entrySet())
+            {
+                final EncodedImage image = cached.getValue().image;
+                writer.write(new StringBuilder(cached.getKey())
+                        .append('\t').append(image.file.getAbsolutePath())
+                        .append('\t').append(image.size)
+                        .append('\t').append(image.width)
+                        .append('\t').append(image.height)
+                        .append('\t').append(image.format.option)
+                        .append('\t').append(image.quality)
+                        .append('\t').append(image.encodeAttempts)
+                        .append('\t').append(cached.getValue().systemThumbnail)
+                        .append('\t').append(image.digest != null ? image.digest : NO_DIGEST)
+                        .append('\t').append(cached.getValue().originalDigest != null
+                                ? cached.getValue().originalDigest
+                                : NO_DIGEST)
+                        .append('\n')
+                        .toString());
+            }
+        }
+        catch (IOException e)
+        {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package com.imagepicker.utils;
+
+import android.content.Context;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Keeps the files the picker leaves behind within a byte quota and an age limit.
+ *
+ * Everything in the output directory has been created by the picker, camera captures elsewhere are
+ * tracked by their path in an index file. Files are evicted oldest modification first once they are
+ * older than the age limit or their total exceeds the quota. Files younger than {@link #MIN_AGE_MS}
+ * are never evicted by {@link #trim(long)}, the app may not have read a result it just got.
+ */
+public class TempFileManager
+{
+    public static final long DEFAULT_MAX_BYTES = 100L * 1024 * 1024;
+    public static final long DEFAULT_MAX_AGE_MS = 7L * 24 * 60 * 60 * 1000;
+    public static final long MIN_AGE_MS = 5L * 60 * 1000;
+
+    private static final String INDEX_FILE = "ImagePicker-files";
+
+    /**
+     * What a cleanup has deleted
+     */
+    public static class Result
+    {
+        public final int deletedFiles;
+        public final long freedBytes;
+
+        public Result(final int deletedFiles,
+                      final long freedBytes)
+        {
+            this.deletedFiles = deletedFiles;
+            this.freedBytes = freedBytes;
+        }
+    }
+
+    private final File directory;
+    private final File indexFile;
+    private final long maxBytes;
+    private final long maxAgeMs;
+    private @Nullable Set<String> tracked;
+
+    /**
+     * @param directory whose files all belong to the picker
+     * @param indexFile where the paths of tracked files outside of directory are kept
+     */
+    public TempFileManager(@NonNull final File directory,
+                           @NonNull final File indexFile,
+                           final long maxBytes,
+                           final long maxAgeMs)
+    {
+        this.directory = directory;
+        this.indexFile = indexFile;
+        this.maxBytes = maxBytes;
+        this.maxAgeMs = maxAgeMs;
+    }
+
+    /**
+     * Manages the outputs of {@link MediaUtils#createOutputFile}, the index survives a cleared cache
+     * so captures are still found afterwards
+     */
+    public static @NonNull TempFileManager forContext(@NonNull final Context context)
+    {
+        return new TempFileManager(new File(context.getCacheDir(), MediaUtils.OUTPUT_DIRECTORY),
+                new File(context.getNoBackupFilesDir(), INDEX_FILE),
+                DEFAULT_MAX_BYTES, DEFAULT_MAX_AGE_MS);
+    }
+
+    /**
+     * Makes a file outside of the output directory subject to cleanup
+     */
+    public synchronized void track(@NonNull final File file)
+    {
+        final String path = file.getAbsolutePath();
+        if (getTracked().add(path))
+        {
+            try (Writer writer = new FileWriter(indexFile, true))
+            {
+                writer.write(path);
+                writer.write('\n');
+            }
+            catch (IOException e)
+            {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Deletes the files beyond the age limit and the oldest ones until the rest fits into the quota
+     *
+     * @param now current time in ms
+     */
+    public synchronized @NonNull Result trim(final long now)
+    {
+        final List<File> files = listFiles();
+        long totalBytes = 0;
+        for (File file : files)
+        {
+            totalBytes += file.length();
+        }
+
+        int deletedFiles = 0;
+        long freedBytes = 0;
+        for (File file : files)
+        {
+            final long age = now - file.lastModified();
+            if (age < MIN_AGE_MS || (age < maxAgeMs && totalBytes <= maxBytes))
+            {
+                // the remaining files are younger
+                break;
+            }
+            final long length = file.length();
+            if (file.delete())
+            {
+                deletedFiles++;
+                freedBytes += length;
+                totalBytes -= length;
+            }
+        }
+        if (deletedFiles > 0)
+        {
+            pruneIndex();
+        }
+        return new Result(deletedFiles, freedBytes);
+    }
+
+    /**
+     * Deletes every file of the picker, also ones which have just been returned
+     */
+    public synchronized @NonNull Result deleteAll()
+    {
+        int deletedFiles = 0;
+        long freedBytes = 0;
+        for (File file : listFiles())
+        {
+            final long length = file.length();
+            if (file.delete())
+            {
+                deletedFiles++;
+                freedBytes += length;
+            }
+        }
+        pruneIndex();
+        return new Result(deletedFiles, freedBytes);
+    }
+
+    /**
+     * @return existing files of the picker, least recently modified first
+     */
+    private @NonNull List<File> listFiles()
+    {
+        final List<File> files = new ArrayList<>();
+        final File[] outputs = directory.listFiles();
+        if (outputs != null)
+        {
+            for (File output : outputs)
+            {
+                if (output.isFile())
+                {
+                    files.add(output);
+                }
+            }
+        }
+        for (String path : getTracked())
+        {
+            final File file = new File(path);
+            if (file.isFile())
+            {
+                files.add(file);
+            }
+        }
+        Collections.sort(files, new Comparator<File>()
+        {
+            @Override
+            public int compare(File a, File b)
+            {
+                final long difference = a.lastModified() - b.lastModified();
+                return difference < 0 ? -1 : (difference > 0 ? 1 : 0);
+            }
+        });
+        return files;
+    }
+
+    /**
+     * Drops tracked files which don't exist anymore from the index
+     */
+    private void pruneIndex()
+    {
+        final Set<String> tracked = getTracked();
+        final Iterator<String> iterator = tracked.iterator();
+        while (iterator.hasNext())
+        {
+            if (!new File(iterator.next()).exists())
+            {
+                iterator.remove();
+            }
+        }
+        try (Writer writer = new FileWriter(indexFile, false))
+        {
+            for (String path : tracked)
+            {
+                writer.write(path);
+                writer.write('\n');
+            }
+        }
+        catch (IOException e)
+        {
+            e.printStackTrace();
+        }
+    }
+
+    private @NonNull Set<String> getTracked()
+    {
+        if (tracked == null)
+        {
+            tracked = new LinkedHashSet<>();
+            try (BufferedReader reader = new BufferedReader(new FileReader(indexFile)))
+            {
+                String line;
+                while ((line = reader.readLine()) != null)
+                {
+                    if (!line.isEmpty())
+                    {
+                        tracked.add(line);
+                    }
+                }
+            }
+            catch (FileNotFoundException e)
+            {
+                // nothing tracked yet
+            }
+            catch (IOException e)
+            {
+                e.printStackTrace();
+            }
+        }
+        return tracked;
+    }
+}
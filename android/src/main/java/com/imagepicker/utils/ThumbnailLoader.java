@@ -0,0 +1,154 @@
+package com.imagepicker.utils;
+
+import android.content.ContentResolver;
+import android.content.ContentUris;
+import android.database.Cursor;
+import android.graphics.Bitmap;
+import android.graphics.Matrix;
+import android.net.Uri;
+import android.os.Build;
+import android.os.CancellationSignal;
+import android.os.OperationCanceledException;
+import android.provider.DocumentsContract;
+import android.provider.MediaStore;
+import android.util.Size;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Looks up the thumbnail the system already keeps for a picked image, so a preview doesn't need the original decoded.
+ *
+ * From Q on ContentResolver#loadThumbnail is asked, the media provider serves it from its cache and other
+ * providers from their own previews. Before Q only a cached MINI_KIND thumbnail of the media store is taken,
+ * {@link MediaStore.Images.Thumbnails#getThumbnail} would decode the original to create a missing one.
+ */
+public class ThumbnailLoader
+{
+    private static final int API_Q = 29;
+
+    /**
+     * @param width size the thumbnail should cover
+     * @param height size the thumbnail should cover
+     * @param rotation degrees the stored image has to be rotated by, thumbnails are returned upright
+     * @return the thumbnail or null if the system has none, it may be smaller or bigger than requested
+     * @throws OperationCanceledException if the signal has been cancelled
+     */
+    public static @Nullable Bitmap loadSystemThumbnail(@NonNull final ContentResolver contentResolver,
+                                                       @NonNull final Uri uri,
+                                                       final int width,
+                                                       final int height,
+                                                       final int rotation,
+                                                       @Nullable final CancellationSignal cancellationSignal)
+    {
+        if (!ContentResolver.SCHEME_CONTENT.equals(uri.getScheme()))
+        {
+            return null;
+        }
+        return Build.VERSION.SDK_INT >= API_Q
+                ? loadThumbnail(contentResolver, uri, width, height, cancellationSignal)
+                : loadCachedMiniThumbnail(contentResolver, uri, rotation);
+    }
+
+    /**
+     * ContentResolver#loadThumbnail, which compileSdk doesn't have yet. It applies the orientation itself.
+     */
+    private static @Nullable Bitmap loadThumbnail(@NonNull final ContentResolver contentResolver,
+                                                  @NonNull final Uri uri,
+                                                  final int width,
+                                                  final int height,
+                                                  @Nullable final CancellationSignal cancellationSignal)
+    {
+        try
+        {
+            final Method loadThumbnail = ContentResolver.class.getMethod("loadThumbnail",
+                    Uri.class, Size.class, CancellationSignal.class);
+            return (Bitmap) loadThumbnail.invoke(contentResolver, uri, new Size(width, height), cancellationSignal);
+        }
+        catch (InvocationTargetException e)
+        {
+            if (e.getCause() instanceof OperationCanceledException)
+            {
+                throw (OperationCanceledException) e.getCause();
+            }
+            // an IOException when the provider has no thumbnail
+            return null;
+        }
+        catch (NoSuchMethodException | IllegalAccessException e)
+        {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    private static @Nullable Bitmap loadCachedMiniThumbnail(@NonNull final ContentResolver contentResolver,
+                                                            @NonNull final Uri uri,
+                                                            final int rotation)
+    {
+        final long id = getMediaImageId(uri);
+        if (id < 0)
+        {
+            return null;
+        }
+        try (Cursor cursor = MediaStore.Images.Thumbnails.queryMiniThumbnail(contentResolver, id,
+                MediaStore.Images.Thumbnails.MINI_KIND, new String[] {MediaStore.Images.Thumbnails._ID}))
+        {
+            if (cursor == null || !cursor.moveToFirst())
+            {
+                return null;
+            }
+        }
+        catch (RuntimeException e)
+        {
+            e.printStackTrace();
+            return null;
+        }
+
+        final Bitmap thumbnail = MediaStore.Images.Thumbnails.getThumbnail(contentResolver, id,
+                MediaStore.Images.Thumbnails.MINI_KIND, null);
+        if (thumbnail == null || rotation % 360 == 0)
+        {
+            return thumbnail;
+        }
+        // the media store keeps thumbnails as stored, not as displayed
+        final Matrix matrix = new Matrix();
+        matrix.postRotate(rotation);
+        final Bitmap rotated = Bitmap.createBitmap(thumbnail, 0, 0,
+                thumbnail.getWidth(), thumbnail.getHeight(), matrix, true);
+        if (rotated != thumbnail)
+        {
+            thumbnail.recycle();
+        }
+        return rotated;
+    }
+
+    /**
+     * @return id of the image in the media store, -1 if the uri doesn't point to one
+     */
+    private static long getMediaImageId(@NonNull final Uri uri)
+    {
+        try
+        {
+            if (RealPathUtil.isMediaDocument(uri))
+            {
+                // image:123
+                final String[] split = DocumentsContract.getDocumentId(uri).split(":");
+                return split.length == 2 && "image".equals(split[0])
+                        ? Long.parseLong(split[1])
+                        : -1;
+            }
+            final String path = uri.getPath();
+            if (MediaStore.AUTHORITY.equals(uri.getAuthority()) && path != null && path.contains("/images/"))
+            {
+                return ContentUris.parseId(uri);
+            }
+        }
+        catch (NumberFormatException | UnsupportedOperationException e)
+        {
+            e.printStackTrace();
+        }
+        return -1;
+    }
+}
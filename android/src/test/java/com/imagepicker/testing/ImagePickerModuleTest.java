@@ -1,8 +1,11 @@
 package com.imagepicker.testing;
 
 import android.app.Activity;
+import android.content.ContentResolver;
+import android.content.Intent;
 import android.content.pm.PackageManager;
 import android.net.Uri;
+import android.os.Looper;
 
 import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.Callback;
@@ -11,6 +14,7 @@ import com.facebook.react.bridge.JavaOnlyMap;
 import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.common.build.ReactBuildConfig;
 import com.imagepicker.ImagePickerModule;
+import com.imagepicker.PickerSession;
 import com.imagepicker.R;
 
 import org.junit.After;
@@ -27,11 +31,18 @@ import org.powermock.core.classloader.annotations.SuppressStaticInitializationFo
 import org.powermock.modules.junit4.rule.PowerMockRule;
 import org.robolectric.Robolectric;
 import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.Shadows;
 import org.robolectric.android.controller.ActivityController;
 import org.robolectric.annotation.Config;
 
 import java.io.File;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
+import static junit.framework.Assert.assertEquals;
 import static junit.framework.Assert.assertFalse;
 import static junit.framework.Assert.assertNotNull;
 import static junit.framework.Assert.assertTrue;
@@ -87,13 +98,95 @@ public class ImagePickerModuleTest
     public void testCancelTakingPhoto()
     {
         final SampleCallback callback = new SampleCallback();
-        module.setCallback(callback);
-        module.setCameraCaptureUri(Uri.fromFile(new File("")));
+        module.startPendingSession(ImagePickerModule.REQUEST_LAUNCH_IMAGE_CAPTURE, callback)
+                .setCameraCaptureUri(Uri.fromFile(new File("")));
         module.onActivityResult(activity, ImagePickerModule.REQUEST_LAUNCH_IMAGE_CAPTURE, Activity.RESULT_CANCELED, null);
         assertFalse("Camera's been launched", callback.hasError());
         assertTrue("User's cancelled of taking a photo", callback.didCancel());
     }
 
+    @Test
+    public void testConcurrentSessionsKeepTheirCallbacks()
+    {
+        final SampleCallback cameraCallback = new SampleCallback();
+        final SampleCallback libraryCallback = new SampleCallback();
+        module.startPendingSession(ImagePickerModule.REQUEST_LAUNCH_IMAGE_CAPTURE, cameraCallback)
+                .setCameraCaptureUri(Uri.fromFile(new File("")));
+        module.startPendingSession(ImagePickerModule.REQUEST_LAUNCH_IMAGE_LIBRARY, libraryCallback);
+
+        module.onActivityResult(activity, ImagePickerModule.REQUEST_LAUNCH_IMAGE_LIBRARY, Activity.RESULT_CANCELED, null);
+        assertTrue("Library pick has been cancelled", libraryCallback.didCancel());
+        assertFalse("Camera pick is still waiting", cameraCallback.isInvoked());
+
+        module.onActivityResult(activity, ImagePickerModule.REQUEST_LAUNCH_IMAGE_CAPTURE, Activity.RESULT_CANCELED, null);
+        assertTrue("Camera pick got its own result", cameraCallback.didCancel());
+    }
+
+    @Test
+    public void testCancelledJobIgnoresLateResult()
+    {
+        final SampleCallback callback = new SampleCallback();
+        final PickerSession session = module.startPendingSession(ImagePickerModule.REQUEST_LAUNCH_IMAGE_LIBRARY, callback);
+
+        module.cancel(session.id);
+        assertTrue("Job has been cancelled", callback.didCancel());
+        assertTrue("Processing is told to stop", session.cancellationSignal.isCanceled());
+
+        module.onActivityResult(activity, ImagePickerModule.REQUEST_LAUNCH_IMAGE_LIBRARY, Activity.RESULT_CANCELED, null);
+        assertEquals("Late result isn't delivered again", 1, callback.getInvocationCount());
+    }
+
+    @Test
+    public void testPickedImageIsProcessedOffMainThread() throws Exception
+    {
+        final Uri uri = Uri.parse("content://com.imagepicker.testing/picked.jpg");
+        final ContentResolver contentResolver = RuntimeEnvironment.application.getContentResolver();
+        final ThreadRecordingInputStream imageStream = new ThreadRecordingInputStream();
+        Shadows.shadowOf(contentResolver).registerInputStream(uri, imageStream);
+        when(reactContext.getContentResolver()).thenReturn(contentResolver);
+
+        final RecordingExecutor executor = new RecordingExecutor();
+        final TestableImagePickerModule backgroundModule = new TestableImagePickerModule(reactContext, DEFAULT_THEME, executor);
+        final SampleCallback callback = new SampleCallback();
+        backgroundModule.startPendingSession(ImagePickerModule.REQUEST_LAUNCH_IMAGE_LIBRARY, callback);
+
+        backgroundModule.onActivityResult(activity, ImagePickerModule.REQUEST_LAUNCH_IMAGE_LIBRARY, Activity.RESULT_OK, new Intent().setData(uri));
+
+        assertEquals("Processing has been handed over to the executor", 1, executor.getPendingCount());
+        assertTrue("Image hasn't been read on the main thread", imageStream.getReaderThreads().isEmpty());
+        assertFalse("Callback waits for the processing", callback.isInvoked());
+
+        executor.runPendingOnWorkerThread();
+
+        assertFalse("Image has been read by the processing task", imageStream.getReaderThreads().isEmpty());
+        assertFalse("Image hasn't been read on the main thread",
+                imageStream.getReaderThreads().contains(Looper.getMainLooper().getThread()));
+        assertTrue("Callback has been invoked after processing", callback.isInvoked());
+    }
+
+    private static class ThreadRecordingInputStream extends InputStream
+    {
+        private final List<Thread> readerThreads = Collections.synchronizedList(new ArrayList<Thread>());
+
+        @Override
+        public int read()
+        {
+            readerThreads.add(Thread.currentThread());
+            return -1;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length)
+        {
+            return read();
+        }
+
+        List<Thread> getReaderThreads()
+        {
+            return readerThreads;
+        }
+    }
+
     private void nativeMock()
     {
         PowerMockito.mockStatic(Arguments.class);
@@ -0,0 +1,87 @@
+package com.imagepicker.testing;
+
+import androidx.annotation.NonNull;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executor which keeps submitted tasks until the test runs them on a thread of its choice.
+ */
+public class RecordingExecutor extends AbstractExecutorService
+{
+    private final LinkedList<Runnable> pending = new LinkedList<>();
+    private boolean shutdown;
+
+    @Override
+    public synchronized void execute(@NonNull final Runnable command)
+    {
+        pending.add(command);
+    }
+
+    public synchronized int getPendingCount()
+    {
+        return pending.size();
+    }
+
+    /**
+     * Runs all pending tasks on a new thread and waits for them
+     */
+    public void runPendingOnWorkerThread() throws InterruptedException
+    {
+        final Thread worker = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                Runnable task;
+                while ((task = poll()) != null)
+                {
+                    task.run();
+                }
+            }
+        }, "RecordingExecutor-worker");
+        worker.start();
+        worker.join();
+    }
+
+    private synchronized Runnable poll()
+    {
+        return pending.poll();
+    }
+
+    @Override
+    public synchronized void shutdown()
+    {
+        shutdown = true;
+    }
+
+    @Override
+    public synchronized @NonNull List<Runnable> shutdownNow()
+    {
+        shutdown = true;
+        final List<Runnable> result = new LinkedList<>(pending);
+        pending.clear();
+        return result;
+    }
+
+    @Override
+    public synchronized boolean isShutdown()
+    {
+        return shutdown;
+    }
+
+    @Override
+    public synchronized boolean isTerminated()
+    {
+        return shutdown && pending.isEmpty();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, @NonNull TimeUnit unit)
+    {
+        return isTerminated();
+    }
+}
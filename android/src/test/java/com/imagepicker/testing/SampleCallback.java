@@ -11,10 +11,14 @@ public class SampleCallback implements Callback
 {
     private boolean hasError;
     private boolean didCancel;
+    private boolean invoked;
+    private int invocationCount;
 
     @Override
     public void invoke(Object... args)
     {
+        invoked = true;
+        invocationCount++;
         System.out.println(args.length);
         System.out.println(String.valueOf(args[0]));
         System.out.println(args[0].getClass());
@@ -40,6 +44,16 @@ public class SampleCallback implements Callback
         return didCancel;
     }
 
+    public boolean isInvoked()
+    {
+        return invoked;
+    }
+
+    public int getInvocationCount()
+    {
+        return invocationCount;
+    }
+
     private boolean lookingForError(Object arg)
     {
         hasError = false;
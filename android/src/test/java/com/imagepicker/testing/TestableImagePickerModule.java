@@ -1,13 +1,20 @@
 package com.imagepicker.testing;
 
-import android.net.Uri;
 import androidx.annotation.NonNull;
-import androidx.annotation.Nullable;
 import androidx.annotation.StyleRes;
 
 import com.facebook.react.bridge.Callback;
+import com.facebook.react.bridge.JavaOnlyMap;
 import com.facebook.react.bridge.ReactApplicationContext;
 import com.imagepicker.ImagePickerModule;
+import com.imagepicker.PickerSession;
+import com.imagepicker.utils.ResultCache;
+import com.imagepicker.utils.TempFileManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.ExecutorService;
 
 /**
  * Created by rusfearuth on 10.04.17.
@@ -18,16 +25,53 @@ public class TestableImagePickerModule extends ImagePickerModule
     public TestableImagePickerModule(ReactApplicationContext reactContext,
                                      @StyleRes int dialogThemeId)
     {
-        super(reactContext, dialogThemeId);
+        super(reactContext, dialogThemeId, null, createTempFileManager(), createResultCache());
+    }
+
+    public TestableImagePickerModule(ReactApplicationContext reactContext,
+                                     @StyleRes int dialogThemeId,
+                                     @NonNull ExecutorService processingExecutor)
+    {
+        super(reactContext, dialogThemeId, processingExecutor, createTempFileManager(), createResultCache());
+    }
+
+    /**
+     * Paths of the mocked context would be relative to the working directory, cleanups stay in a temporary one
+     */
+    private static @NonNull TempFileManager createTempFileManager()
+    {
+        final File directory = createTempDirectory();
+        return new TempFileManager(new File(directory, "output"), new File(directory, "index"),
+                TempFileManager.DEFAULT_MAX_BYTES, TempFileManager.DEFAULT_MAX_AGE_MS);
+    }
+
+    private static @NonNull ResultCache createResultCache()
+    {
+        return new ResultCache(new File(createTempDirectory(), "results"), ResultCache.DEFAULT_MAX_ENTRIES);
     }
 
-    public void setCallback(@NonNull final Callback callback)
+    private static @NonNull File createTempDirectory()
     {
-        this.callback = callback;
+        try
+        {
+            final File directory = Files.createTempDirectory("ImagePickerModuleTest").toFile();
+            directory.deleteOnExit();
+            return directory;
+        }
+        catch (IOException e)
+        {
+            throw new RuntimeException(e);
+        }
     }
 
-    public void setCameraCaptureUri(@Nullable final Uri uri)
+    /**
+     * Registers a session as if its activity had been launched with requestCode
+     */
+    public @NonNull PickerSession startPendingSession(final int requestCode,
+                                                      @NonNull final Callback callback)
     {
-        this.cameraCaptureURI = uri;
+        final PickerSession session = startSession(new JavaOnlyMap(), callback);
+        addPendingSession(requestCode, session);
+        return session;
     }
 }
@@ -1,17 +1,17 @@
 package com.imagepicker.testing.media;
 
+import android.net.Uri;
+
 import com.facebook.react.bridge.JavaOnlyMap;
 import com.facebook.react.bridge.WritableMap;
 import com.imagepicker.media.ImageConfig;
+import com.imagepicker.utils.ContentDigest;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.robolectric.RobolectricTestRunner;
 
-import java.io.File;
-
 import static junit.framework.Assert.assertEquals;
-import static junit.framework.Assert.assertNotNull;
 import static junit.framework.Assert.assertNull;
 import static junit.framework.Assert.assertTrue;
 
@@ -25,18 +25,8 @@ public class ImageConfigTest
     @Test
     public void testOnImmutable()
     {
-        ImageConfig original = new ImageConfig(new File("original.txt"), new File("resized.txt"), 0, 0, 0, 0, false);
-        ImageConfig updated = original.withOriginalFile(null);
-
-        assertNotNull("Original has got original file", original.original);
-        assertNull("Updated hasn't got original file", updated.original);
-
-        updated = original.withResizedFile(null);
-
-        assertNotNull("Original has got resized file", original.resized);
-        assertNull("Updated hasn't got resized file", updated.resized);
-
-        updated = original.withMaxWidth(1);
+        ImageConfig original = new ImageConfig(0, 0, 0, 0, false);
+        ImageConfig updated = original.withMaxWidth(1);
 
         assertEquals("Original max width", 0, original.maxWidth);
         assertEquals("Updated max width", 1, updated.maxWidth);
@@ -60,13 +50,21 @@ public class ImageConfigTest
 
         assertEquals("Original saveToCameraRoll", false, original.saveToCameraRoll);
         assertEquals("Updated saveToCameraRoll", true, updated.saveToCameraRoll);
+
+        updated = original.withMaxFileSize(1000).withDigest(ContentDigest.SHA_256);
+
+        assertEquals("Original maxFileSize", 0, original.maxFileSize);
+        assertNull("Original digest", original.digest);
+        assertEquals("Updated maxFileSize", 1000, updated.maxFileSize);
+        assertEquals("Updated digest", ContentDigest.SHA_256, updated.digest);
+        assertEquals("Other fields are kept", 0, updated.quality);
     }
 
     @Test
     public void testParsingOptions()
     {
         WritableMap options = defaultOptions();
-        ImageConfig config = new ImageConfig(null, null, 0, 0, 0, 0, false);
+        ImageConfig config = new ImageConfig(0, 0, 0, 0, false);
         config = config.updateFromOptions(options);
         assertEquals("maxWidth", 1000, config.maxWidth);
         assertEquals("maxHeight", 600, config.maxHeight);
@@ -78,7 +76,7 @@ public class ImageConfigTest
     @Test
     public void testUseOriginal()
     {
-        ImageConfig config = new ImageConfig(null, null, 800, 600, 100, 90, false);
+        ImageConfig config = new ImageConfig(800, 600, 100, 90, false);
 
         assertEquals("Image wont be resized", true, config.useOriginal(100, 100, 90));
         assertEquals("Image will be resized because of rotation", false, config.useOriginal(100, 100, 80));
@@ -90,13 +88,13 @@ public class ImageConfigTest
     }
 
     @Test
-    public void testGetActualFile()
+    public void testGifKeepsFullQuality()
     {
-        ImageConfig originalConfig = new ImageConfig(new File("original.txt"), null, 0, 0, 0, 0, false);
-        ImageConfig resizedConfig = originalConfig.withResizedFile(new File("resized.txt"));
+        ImageConfig config = new ImageConfig(800, 600, 50, 0, false);
 
-        assertEquals("For config which has got only original file", "original.txt", originalConfig.getActualFile().getName());
-        assertEquals("For config which has got resized file too", "resized.txt", resizedConfig.getActualFile().getName());
+        assertEquals("GIF isn't compressed", 100, config.withUri(Uri.parse("content://media/image.gif")).quality);
+        assertEquals("Quality of other images", 50, config.withUri(Uri.parse("content://media/image.jpg")).quality);
+        assertEquals("Without uri", 50, config.withUri(null).quality);
     }
 
     private JavaOnlyMap defaultOptions()
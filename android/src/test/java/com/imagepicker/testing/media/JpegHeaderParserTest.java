@@ -0,0 +1,166 @@
+package com.imagepicker.testing.media;
+
+import com.imagepicker.media.JpegHeaderParser;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+
+public class JpegHeaderParserTest
+{
+    private static final Charset US_ASCII = Charset.forName("US-ASCII");
+
+    @Test
+    public void testBigEndianExif() throws IOException
+    {
+        assertHeader(createHeader(false, false));
+    }
+
+    @Test
+    public void testLittleEndianExif() throws IOException
+    {
+        assertHeader(createHeader(true, false));
+    }
+
+    @Test
+    public void testExifAfterXmp() throws IOException
+    {
+        assertHeader(createHeader(false, true));
+    }
+
+    @Test
+    public void testHeaderWithoutFrame() throws IOException
+    {
+        final byte[] header = createHeader(false, false);
+        assertNull("Frame isn't within the bytes", JpegHeaderParser.parse(header, header.length - 30));
+        assertTrue("Still recognized as JPEG", JpegHeaderParser.isJpeg(header, header.length - 30));
+    }
+
+    @Test
+    public void testNotJpeg()
+    {
+        final byte[] png = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+        assertFalse(JpegHeaderParser.isJpeg(png, png.length));
+        assertNull(JpegHeaderParser.parse(png, png.length));
+    }
+
+    private static void assertHeader(final byte[] header)
+    {
+        final JpegHeaderParser.Result result = JpegHeaderParser.parse(header, header.length);
+        assertNotNull("Header has been parsed", result);
+        assertEquals(4000, result.width);
+        assertEquals(3000, result.height);
+        assertEquals("Rotated 90 degrees", 6, result.orientation);
+        assertEquals("2019:06:24 15:04:47", result.dateTime);
+        assertTrue(result.hasLocation);
+        assertEquals(52.5, result.latitude, 1e-9);
+        assertEquals("West is negative", -13.4, result.longitude, 1e-9);
+    }
+
+    /**
+     * SOI, optionally an XMP APP1, Exif APP1 with orientation, DateTime and GPS, SOF0 of 4000x3000, SOS
+     */
+    private static byte[] createHeader(final boolean littleEndian,
+                                       final boolean xmpFirst) throws IOException
+    {
+        final ByteArrayOutputStream tiff = new ByteArrayOutputStream();
+        final byte order = (byte) (littleEndian ? 'I' : 'M');
+        tiff.write(order);
+        tiff.write(order);
+        writeShort(tiff, 42, littleEndian);
+        writeInt(tiff, 8, littleEndian);
+
+        writeShort(tiff, 3, littleEndian);
+        writeEntry(tiff, 0x0112, 3, 1, littleEndian);
+        writeShort(tiff, 6, littleEndian);
+        writeShort(tiff, 0, littleEndian);
+        writeEntry(tiff, 0x0132, 2, 20, littleEndian);
+        writeInt(tiff, 50, littleEndian);
+        writeEntry(tiff, 0x8825, 4, 1, littleEndian);
+        writeInt(tiff, 70, littleEndian);
+        writeInt(tiff, 0, littleEndian);
+        tiff.write("2019:06:24 15:04:47\0".getBytes(US_ASCII));
+
+        writeShort(tiff, 4, littleEndian);
+        writeEntry(tiff, 0x0001, 2, 2, littleEndian);
+        tiff.write(new byte[] {'N', 0, 0, 0});
+        writeEntry(tiff, 0x0002, 5, 3, littleEndian);
+        writeInt(tiff, 124, littleEndian);
+        writeEntry(tiff, 0x0003, 2, 2, littleEndian);
+        tiff.write(new byte[] {'W', 0, 0, 0});
+        writeEntry(tiff, 0x0004, 5, 3, littleEndian);
+        writeInt(tiff, 148, littleEndian);
+        writeInt(tiff, 0, littleEndian);
+        for (long value : new long[] {52, 1, 30, 1, 0, 1, 13, 1, 24, 1, 0, 1})
+        {
+            writeInt(tiff, value, littleEndian);
+        }
+        final byte[] tiffBytes = tiff.toByteArray();
+
+        final ByteArrayOutputStream jpeg = new ByteArrayOutputStream();
+        jpeg.write(new byte[] {(byte) 0xFF, (byte) 0xD8});
+        if (xmpFirst)
+        {
+            final byte[] xmp = "http://ns.adobe.com/xap/1.0/\0<x:xmpmeta xmlns:x=\"adobe:ns:meta/\"/>"
+                    .getBytes(US_ASCII);
+            jpeg.write(new byte[] {(byte) 0xFF, (byte) 0xE1});
+            writeShort(jpeg, 2 + xmp.length, false);
+            jpeg.write(xmp);
+        }
+        jpeg.write(new byte[] {(byte) 0xFF, (byte) 0xE1});
+        writeShort(jpeg, 2 + 6 + tiffBytes.length, false);
+        jpeg.write("Exif\0\0".getBytes(US_ASCII));
+        jpeg.write(tiffBytes);
+        jpeg.write(new byte[] {(byte) 0xFF, (byte) 0xC0});
+        writeShort(jpeg, 17, false);
+        jpeg.write(8);
+        writeShort(jpeg, 3000, false);
+        writeShort(jpeg, 4000, false);
+        jpeg.write(new byte[10]);
+        jpeg.write(new byte[] {(byte) 0xFF, (byte) 0xDA});
+        return jpeg.toByteArray();
+    }
+
+    private static void writeEntry(final ByteArrayOutputStream output,
+                                   final int tag,
+                                   final int type,
+                                   final long count,
+                                   final boolean littleEndian)
+    {
+        writeShort(output, tag, littleEndian);
+        writeShort(output, type, littleEndian);
+        writeInt(output, count, littleEndian);
+    }
+
+    private static void writeShort(final ByteArrayOutputStream output,
+                                   final int value,
+                                   final boolean littleEndian)
+    {
+        if (littleEndian)
+        {
+            output.write(value);
+            output.write(value >> 8);
+        }
+        else
+        {
+            output.write(value >> 8);
+            output.write(value);
+        }
+    }
+
+    private static void writeInt(final ByteArrayOutputStream output,
+                                 final long value,
+                                 final boolean littleEndian)
+    {
+        writeShort(output, (int) (littleEndian ? value : value >> 16), littleEndian);
+        writeShort(output, (int) (littleEndian ? value >> 16 : value), littleEndian);
+    }
+}
@@ -0,0 +1,36 @@
+package com.imagepicker.testing.media;
+
+import com.imagepicker.media.OutputFormat;
+
+import org.junit.Test;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+
+public class OutputFormatTest
+{
+    @Test
+    public void testFromOption()
+    {
+        assertEquals(OutputFormat.JPEG, OutputFormat.fromOption("jpeg"));
+        assertEquals(OutputFormat.PNG, OutputFormat.fromOption("PNG"));
+        assertEquals(OutputFormat.WEBP_LOSSY, OutputFormat.fromOption("webp"));
+        assertEquals(OutputFormat.WEBP_LOSSLESS, OutputFormat.fromOption("webp-lossless"));
+        assertEquals(OutputFormat.HEIF, OutputFormat.fromOption("heif"));
+        assertNull("Unknown format", OutputFormat.fromOption("bmp"));
+        assertNull("Missing format", OutputFormat.fromOption(null));
+    }
+
+    @Test
+    public void testMatches()
+    {
+        assertTrue(OutputFormat.JPEG.matches("image/jpeg"));
+        assertFalse("PNG original is re-encoded to JPEG", OutputFormat.JPEG.matches("image/png"));
+        assertTrue(OutputFormat.WEBP_LOSSY.matches("image/webp"));
+        assertTrue(OutputFormat.WEBP_LOSSLESS.matches("image/webp"));
+        assertTrue(OutputFormat.HEIF.matches("image/heic"));
+        assertFalse("Unknown mime type", OutputFormat.PNG.matches(null));
+    }
+}
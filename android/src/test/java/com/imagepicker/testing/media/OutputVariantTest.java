@@ -0,0 +1,45 @@
+package com.imagepicker.testing.media;
+
+import com.facebook.react.bridge.JavaOnlyMap;
+import com.imagepicker.media.OutputFormat;
+import com.imagepicker.media.OutputVariant;
+
+import org.junit.Test;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+
+public class OutputVariantTest
+{
+    @Test
+    public void testParsingOptions()
+    {
+        final OutputVariant variant = OutputVariant.fromOptions(JavaOnlyMap.of(
+                "name", "thumbnail",
+                "maxWidth", 200d,
+                "maxHeight", 150d,
+                "quality", 0.6d,
+                "outputFormat", "webp"), 90, OutputFormat.JPEG);
+        assertEquals("name", "thumbnail", variant.name);
+        assertEquals("maxWidth", 200, variant.maxWidth);
+        assertEquals("maxHeight", 150, variant.maxHeight);
+        assertEquals("quality", 60, variant.quality);
+        assertEquals("outputFormat", OutputFormat.WEBP_LOSSY, variant.outputFormat);
+    }
+
+    @Test
+    public void testDefaults()
+    {
+        final OutputVariant variant = OutputVariant.fromOptions(JavaOnlyMap.of(
+                "maxWidth", 1000d,
+                "outputFormat", "unknown"), 90, OutputFormat.PNG);
+        assertNull("name", variant.name);
+        assertEquals("No height limit", 0, variant.maxHeight);
+        assertEquals("Image quality", 90, variant.quality);
+        assertEquals("Image format", OutputFormat.PNG, variant.outputFormat);
+
+        final int[] size = variant.calculateTargetSize(4000, 3000);
+        assertEquals("width", 1000, size[0]);
+        assertEquals("height", 750, size[1]);
+    }
+}
@@ -0,0 +1,62 @@
+package com.imagepicker.testing.media;
+
+import com.facebook.react.bridge.JavaOnlyMap;
+import com.imagepicker.media.ImageConfig;
+import com.imagepicker.media.OutputFormat;
+import com.imagepicker.media.VideoConfig;
+import com.imagepicker.media.VideoMetadata;
+
+import org.junit.Test;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertNull;
+
+public class VideoConfigTest
+{
+    private static final ImageConfig IMAGE_CONFIG = new ImageConfig(0, 0, 80, 0, false)
+            .withOutputFormat(OutputFormat.WEBP_LOSSY);
+
+    @Test
+    public void testNoPoster()
+    {
+        final VideoConfig config = new VideoConfig(null, 0).updateFromOptions(JavaOnlyMap.of(), IMAGE_CONFIG);
+        assertNull("No poster frame", config.poster);
+    }
+
+    @Test
+    public void testPosterOptions()
+    {
+        final VideoConfig config = new VideoConfig(null, 0).updateFromOptions(JavaOnlyMap.of(
+                "posterFrame", JavaOnlyMap.of("maxWidth", 320d, "time", 1500d, "outputFormat", "png")), IMAGE_CONFIG);
+        assertNotNull("Poster frame", config.poster);
+        assertEquals("maxWidth", 320, config.poster.maxWidth);
+        assertEquals("No height limit", 0, config.poster.maxHeight);
+        assertEquals("Image quality", 80, config.poster.quality);
+        assertEquals("outputFormat", OutputFormat.PNG, config.poster.outputFormat);
+        assertEquals("time", 1500000L, config.posterTimeUs);
+    }
+
+    @Test
+    public void testPosterDefaults()
+    {
+        final VideoConfig config = new VideoConfig(null, 0).updateFromOptions(JavaOnlyMap.of(
+                "posterFrame", JavaOnlyMap.of()), IMAGE_CONFIG);
+        assertEquals("maxWidth", VideoConfig.DEFAULT_POSTER_SIZE, config.poster.maxWidth);
+        assertEquals("maxHeight", VideoConfig.DEFAULT_POSTER_SIZE, config.poster.maxHeight);
+        assertEquals("Image format", OutputFormat.WEBP_LOSSY, config.poster.outputFormat);
+        assertEquals("First frame", 0L, config.posterTimeUs);
+    }
+
+    @Test
+    public void testDisplaySize()
+    {
+        final int[] portrait = new VideoMetadata(1000, 1920, 1080, 90, 8000000, -1, "video/mp4").getDisplaySize();
+        assertEquals("width", 1080, portrait[0]);
+        assertEquals("height", 1920, portrait[1]);
+
+        final int[] landscape = new VideoMetadata(1000, 1920, 1080, 180, 8000000, -1, "video/mp4").getDisplaySize();
+        assertEquals("width", 1920, landscape[0]);
+        assertEquals("height", 1080, landscape[1]);
+    }
+}
@@ -0,0 +1,48 @@
+package com.imagepicker.testing.utils;
+
+import com.imagepicker.utils.ContentDigest;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.security.DigestInputStream;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+
+public class ContentDigestTest
+{
+    private static final String ABC_SHA_256 = "ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad";
+    private static final String ABC_MD5 = "900150983cd24fb0d6963f7d28e17f72";
+
+    @Test
+    public void testAlgorithmFromOption()
+    {
+        assertEquals(ContentDigest.SHA_256, ContentDigest.getAlgorithm("sha256"));
+        assertEquals(ContentDigest.SHA_256, ContentDigest.getAlgorithm("SHA-256"));
+        assertEquals(ContentDigest.MD5, ContentDigest.getAlgorithm("md5"));
+        assertNull(ContentDigest.getAlgorithm("crc32"));
+        assertNull(ContentDigest.getAlgorithm(null));
+    }
+
+    @Test
+    public void testDigestIsHex()
+    {
+        final byte[] data = "xabcx".getBytes(Charset.forName("UTF-8"));
+        assertEquals(ABC_SHA_256, ContentDigest.digest(ContentDigest.SHA_256, data, 1, 3));
+        assertEquals(ABC_MD5, ContentDigest.digest(ContentDigest.MD5, data, 1, 3));
+    }
+
+    @Test
+    public void testFinishReadsWhatIsLeft() throws IOException
+    {
+        final DigestInputStream stream = new DigestInputStream(
+                new ByteArrayInputStream("abc".getBytes(Charset.forName("UTF-8"))),
+                ContentDigest.create(ContentDigest.SHA_256));
+        assertEquals('a', stream.read());
+
+        assertEquals(ABC_SHA_256, ContentDigest.finish(stream));
+    }
+}
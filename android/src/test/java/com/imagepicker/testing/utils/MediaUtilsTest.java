@@ -0,0 +1,96 @@
+package com.imagepicker.testing.utils;
+
+import com.imagepicker.utils.MediaUtils;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+public class MediaUtilsTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testCopyFromPipeUntilItsEnd() throws Exception
+    {
+        final byte[] content = new byte[300 * 1024];
+        for (int i = 0; i < content.length; i++)
+        {
+            content[i] = (byte) (i * 31);
+        }
+        final PipedInputStream input = new PipedInputStream(4096);
+        final PipedOutputStream writerEnd = new PipedOutputStream(input);
+        // written in pieces like a streaming provider, the pipe buffer is much smaller than the content
+        final Thread writer = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    for (int offset = 0; offset < content.length; offset += 1000)
+                    {
+                        writerEnd.write(content, offset, Math.min(1000, content.length - offset));
+                    }
+                    writerEnd.close();
+                }
+                catch (IOException e)
+                {
+                    throw new RuntimeException(e);
+                }
+            }
+        });
+        writer.start();
+
+        final File copy = folder.newFile("copy.bin");
+        final long copied;
+        try (FileChannel output = new FileOutputStream(copy).getChannel())
+        {
+            copied = MediaUtils.copyUntilEnd(Channels.newChannel(input), output, null);
+        }
+        writer.join();
+
+        assertEquals(content.length, copied);
+        assertTrue(Arrays.equals(content, Files.readAllBytes(copy.toPath())));
+    }
+
+    @Test
+    public void testTransferLeavesTheStreamWhereItIs() throws Exception
+    {
+        final byte[] content = new byte[200 * 1024];
+        for (int i = 0; i < content.length; i++)
+        {
+            content[i] = (byte) (i * 7);
+        }
+        final File source = folder.newFile("source.bin");
+        Files.write(source.toPath(), content);
+
+        final File copy = folder.newFile("copy.bin");
+        try (FileInputStream input = new FileInputStream(source);
+             FileChannel output = new FileOutputStream(copy).getChannel())
+        {
+            // a header has been read already, like by ImageInputSession
+            final byte[] header = new byte[1000];
+            assertEquals(header.length, input.read(header));
+
+            assertEquals(content.length, MediaUtils.transferFile(input.getChannel(), content.length, output, null));
+            assertEquals("The stream goes on after the header", content[header.length], (byte) input.read());
+        }
+        assertTrue(Arrays.equals(content, Files.readAllBytes(copy.toPath())));
+    }
+}
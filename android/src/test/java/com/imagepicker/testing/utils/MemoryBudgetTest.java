@@ -0,0 +1,56 @@
+package com.imagepicker.testing.utils;
+
+import com.imagepicker.utils.MemoryBudget;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+public class MemoryBudgetTest
+{
+    @Test
+    public void testOversizedRequestTakesWholeBudget() throws InterruptedException
+    {
+        final MemoryBudget budget = new MemoryBudget(100);
+        assertEquals("Clamped to the capacity", 100, budget.acquire(1000));
+        assertEquals(0, budget.getAvailable());
+        budget.release(100);
+        assertEquals(100, budget.getAvailable());
+    }
+
+    @Test
+    public void testAcquireWaitsForRelease() throws InterruptedException
+    {
+        final MemoryBudget budget = new MemoryBudget(100);
+        final long first = budget.acquire(60);
+        final CountDownLatch acquired = new CountDownLatch(1);
+        final Thread waiter = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    budget.release(budget.acquire(60));
+                    acquired.countDown();
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        waiter.start();
+
+        assertFalse("Doesn't fit next to the first one", acquired.await(100, TimeUnit.MILLISECONDS));
+        budget.release(first);
+        assertTrue("Runs once the first one is done", acquired.await(5, TimeUnit.SECONDS));
+        waiter.join();
+        assertEquals(100, budget.getAvailable());
+    }
+}
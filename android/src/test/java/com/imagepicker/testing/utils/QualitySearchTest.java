@@ -0,0 +1,60 @@
+package com.imagepicker.testing.utils;
+
+import com.imagepicker.utils.QualitySearch;
+
+import org.junit.Test;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+
+public class QualitySearchTest
+{
+    @Test
+    public void testMaxQualityFits()
+    {
+        final QualitySearch search = search(30, 90, 10, 10000);
+        assertEquals("Best quality", 90, search.getBestQuality());
+        assertEquals("Single encode", 1, search.getAttempts());
+    }
+
+    @Test
+    public void testFindsHighestFittingQuality()
+    {
+        // 100 bytes per quality step, 6200 fits up to 62
+        final QualitySearch search = search(30, 90, 10, 6200);
+        assertEquals("Best quality", 62, search.getBestQuality());
+        assertEquals("Smallest attempt", 3000, search.getSmallestSize());
+    }
+
+    @Test
+    public void testNothingFits()
+    {
+        final QualitySearch search = search(30, 90, 10, 1000);
+        assertEquals("No quality fits", -1, search.getBestQuality());
+        assertEquals("Gives up after the lowest quality", 2, search.getAttempts());
+        assertEquals("Smallest attempt", 3000, search.getSmallestSize());
+    }
+
+    @Test
+    public void testAttemptsAreCapped()
+    {
+        final QualitySearch search = search(0, 100, 3, 6200);
+        assertEquals("Attempts", 3, search.getAttempts());
+        assertFalse("Stopped", search.hasNext());
+        assertEquals("Best so far", 50, search.getBestQuality());
+    }
+
+    /**
+     * Runs the search against an encoder whose output takes 100 bytes per quality step
+     */
+    private static QualitySearch search(int minQuality, int maxQuality, int maxAttempts, long maxSize)
+    {
+        final QualitySearch search = new QualitySearch(minQuality, maxQuality, maxAttempts);
+        while (search.hasNext())
+        {
+            final int quality = search.next();
+            search.report(quality, quality * 100L, maxSize);
+        }
+        return search;
+    }
+}
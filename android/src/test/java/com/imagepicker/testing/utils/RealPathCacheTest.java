@@ -0,0 +1,41 @@
+package com.imagepicker.testing.utils;
+
+import com.imagepicker.utils.RealPathCache;
+
+import org.junit.Test;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+
+public class RealPathCacheTest
+{
+    @Test
+    public void testLeastRecentlyUsedIsEvicted()
+    {
+        final RealPathCache cache = new RealPathCache(2);
+        cache.put("content://media/1", "/sdcard/1.jpg", cache.getGeneration());
+        cache.put("content://media/2", "/sdcard/2.jpg", cache.getGeneration());
+        assertEquals("/sdcard/1.jpg", cache.get("content://media/1"));
+        cache.put("content://media/3", "/sdcard/3.jpg", cache.getGeneration());
+
+        assertEquals(2, cache.size());
+        assertEquals("/sdcard/1.jpg", cache.get("content://media/1"));
+        assertNull(cache.get("content://media/2"));
+        assertEquals("/sdcard/3.jpg", cache.get("content://media/3"));
+    }
+
+    @Test
+    public void testPathQueriedBeforeClearIsDropped()
+    {
+        final RealPathCache cache = new RealPathCache(10);
+        cache.put("content://media/1", "/sdcard/1.jpg", cache.getGeneration());
+        final long generation = cache.getGeneration();
+
+        cache.clear();
+        cache.put("content://media/2", "/sdcard/2.jpg", generation);
+
+        assertEquals(0, cache.size());
+        assertNull(cache.get("content://media/1"));
+        assertNull("Path may be outdated", cache.get("content://media/2"));
+    }
+}
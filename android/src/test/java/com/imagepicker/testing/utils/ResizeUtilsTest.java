@@ -0,0 +1,70 @@
+package com.imagepicker.testing.utils;
+
+import com.imagepicker.utils.ResizeUtils;
+
+import org.junit.Test;
+
+import static junit.framework.Assert.assertEquals;
+
+public class ResizeUtilsTest
+{
+    @Test
+    public void testTargetSize()
+    {
+        assertSize("No limits keep the size", 4000, 3000, ResizeUtils.calculateTargetSize(4000, 3000, 0, 0));
+        assertSize("Limited by width", 1000, 750, ResizeUtils.calculateTargetSize(4000, 3000, 1000, 0));
+        assertSize("Limited by height", 800, 600, ResizeUtils.calculateTargetSize(4000, 3000, 1000, 600));
+        assertSize("Never upscaled", 400, 300, ResizeUtils.calculateTargetSize(400, 300, 1000, 1000));
+        assertSize("Never collapses to zero", 100, 1, ResizeUtils.calculateTargetSize(10000, 10, 100, 0));
+    }
+
+    @Test
+    public void testInSampleSize()
+    {
+        assertEquals("Small enough", 1, ResizeUtils.calculateInSampleSize(1000, 750, 1000, 750));
+        assertEquals("Exact power of two", 4, ResizeUtils.calculateInSampleSize(4000, 3000, 1000, 750));
+        assertEquals("Stays above the target", 2, ResizeUtils.calculateInSampleSize(4000, 3000, 1001, 751));
+        assertEquals("Rounded up decode size", 1001, ResizeUtils.sampledSize(4001, 4));
+    }
+
+    @Test
+    public void testStripsOfRemainderHeight()
+    {
+        final int height = 1000;
+        final int targetHeight = 250;
+        final int stripHeight = ResizeUtils.calculateStripHeight(500, height, 2, 4 * 250 * 150);
+        assertEquals("Strip isn't a divisor of the height", 300, stripHeight);
+
+        int covered = 0;
+        for (int top = 0; top < height; top += stripHeight)
+        {
+            final int bottom = Math.min(height, top + stripHeight);
+            final int[] rows = ResizeUtils.calculateStripDestination(top, bottom, height, targetHeight);
+            assertEquals("Strips are drawn without gaps", covered, rows[0]);
+            covered = rows[1];
+        }
+        assertEquals(targetHeight, covered);
+
+        assertSize("Full strip", 250, 150, ResizeUtils.calculateStripRegion(500, 300, 600, 2));
+        assertSize("Only the rows of the last strip, not the whole reused bitmap", 250, 50,
+                ResizeUtils.calculateStripRegion(500, 900, 1000, 2));
+        assertSize("Rounded up like the decoder", 250, 51, ResizeUtils.calculateStripRegion(500, 900, 1001, 2));
+    }
+
+    @Test
+    public void testSizeForFileSize()
+    {
+        assertSize("Scaled by the root of the size ratio", 1800, 1350,
+                ResizeUtils.calculateSizeForFileSize(4000, 3000, 4000000, 1000000));
+        assertSize("At least 10% smaller", 3600, 2700,
+                ResizeUtils.calculateSizeForFileSize(4000, 3000, 1000001, 1000000));
+        assertSize("At most 10 times smaller", 400, 300,
+                ResizeUtils.calculateSizeForFileSize(4000, 3000, 100000000, 10000));
+    }
+
+    private static void assertSize(String message, int width, int height, int[] actual)
+    {
+        assertEquals(message + " (width)", width, actual[0]);
+        assertEquals(message + " (height)", height, actual[1]);
+    }
+}
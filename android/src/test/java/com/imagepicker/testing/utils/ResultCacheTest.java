@@ -0,0 +1,202 @@
+package com.imagepicker.testing.utils;
+
+import com.imagepicker.media.EncodedImage;
+import com.imagepicker.media.ImageConfig;
+import com.imagepicker.media.OutputFormat;
+import com.imagepicker.utils.ResultCache;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.assertTrue;
+
+public class ResultCacheTest
+{
+    private static final String SOURCE = "content://media/external/images/media/1";
+    private static final ImageConfig CONFIG = new ImageConfig(800, 600, 80, 0, false);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File index;
+
+    @Before
+    public void setUp()
+    {
+        index = new File(folder.getRoot(), "index");
+    }
+
+    @Test
+    public void testCreateKey()
+    {
+        final String key = ResultCache.createKey(SOURCE, 1000, 2000, CONFIG);
+        assertNotNull(key);
+        assertEquals("Equal configs share the key",
+                key, ResultCache.createKey(SOURCE, 1000, 2000, new ImageConfig(800, 600, 80, 0, false)));
+        assertFalse("Edited source", key.equals(ResultCache.createKey(SOURCE, 1001, 2000, CONFIG)));
+        assertFalse("Other size", key.equals(ResultCache.createKey(SOURCE, 1000, 2001, CONFIG)));
+        assertFalse("Other config", key.equals(ResultCache.createKey(SOURCE, 1000, 2000, CONFIG.withOutputFormat(OutputFormat.PNG))));
+        assertNull("Unknown modification", ResultCache.createKey(SOURCE, -1, 2000, CONFIG));
+    }
+
+    @Test
+    public void testEntriesSurviveRestart() throws IOException
+    {
+        final File output = createFile("a.jpg", 100);
+        new ResultCache(index, 10).put("key", new ResultCache.Entry(
+                EncodedImage.inFile(40, 30, OutputFormat.WEBP_LOSSY, 70, output).withEncodeAttempts(3), true));
+
+        final ResultCache.Entry entry = new ResultCache(index, 10).get("key");
+        assertNotNull(entry);
+        assertEquals(40, entry.image.width);
+        assertEquals(30, entry.image.height);
+        assertEquals(OutputFormat.WEBP_LOSSY, entry.image.format);
+        assertEquals(70, entry.image.quality);
+        assertEquals(3, entry.image.encodeAttempts);
+        assertEquals(100, entry.image.size);
+        assertEquals(output.getAbsolutePath(), entry.image.file.getAbsolutePath());
+        assertTrue(entry.systemThumbnail);
+        assertNull(entry.image.digest);
+        assertNull(entry.originalDigest);
+    }
+
+    @Test
+    public void testDigestsSurviveRestart() throws IOException
+    {
+        final File output = createFile("a.jpg", 100);
+        new ResultCache(index, 10).put("key", new ResultCache.Entry(
+                EncodedImage.inFile(40, 30, OutputFormat.JPEG, 90, output).withDigest("beef"), false, "cafe"));
+
+        final ResultCache.Entry entry = new ResultCache(index, 10).get("key");
+        assertNotNull(entry);
+        assertEquals("beef", entry.image.digest);
+        assertEquals("cafe", entry.originalDigest);
+    }
+
+    @Test
+    public void testDeletedFileIsMiss() throws IOException
+    {
+        final ResultCache cache = new ResultCache(index, 10);
+        final File output = createFile("a.jpg", 100);
+        cache.put("key", new ResultCache.Entry(EncodedImage.inFile(4, 3, OutputFormat.JPEG, 90, output), false));
+        assertTrue(output.delete());
+
+        assertNull(cache.get("key"));
+    }
+
+    @Test
+    public void testTruncatedFileIsMissAfterRestart() throws IOException
+    {
+        final File output = createFile("a.jpg", 100);
+        new ResultCache(index, 10).put("key", new ResultCache.Entry(
+                EncodedImage.inFile(4, 3, OutputFormat.JPEG, 90, output), false));
+        createFile("a.jpg", 60);
+
+        assertNull("Size is checked against the written one", new ResultCache(index, 10).get("key"));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedIsDropped() throws IOException
+    {
+        final ResultCache cache = new ResultCache(index, 2);
+        cache.put("a", new ResultCache.Entry(EncodedImage.inFile(4, 3, OutputFormat.JPEG, 90, createFile("a.jpg", 1)), false));
+        cache.put("b", new ResultCache.Entry(EncodedImage.inFile(4, 3, OutputFormat.JPEG, 90, createFile("b.jpg", 1)), false));
+        assertNotNull(cache.get("a"));
+        cache.put("c", new ResultCache.Entry(EncodedImage.inFile(4, 3, OutputFormat.JPEG, 90, createFile("c.jpg", 1)), false));
+
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+    }
+
+    @Test
+    public void testConcurrentRequestWaitsForResult() throws Exception
+    {
+        final ResultCache cache = new ResultCache(index, 10);
+        assertNull("First request processes the image", cache.acquire("key", null));
+
+        final AtomicReference<ResultCache.Entry> waited = new AtomicReference<>();
+        final CountDownLatch done = new CountDownLatch(1);
+        final Thread waiter = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    waited.set(cache.acquire("key", null));
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                }
+                done.countDown();
+            }
+        });
+        waiter.start();
+        assertFalse("Second request waits", done.await(200, TimeUnit.MILLISECONDS));
+
+        final ResultCache.Entry entry = new ResultCache.Entry(
+                EncodedImage.inFile(4, 3, OutputFormat.JPEG, 90, createFile("a.jpg", 10)), false);
+        cache.release("key", entry);
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertSame("Shares the result", entry, waited.get());
+    }
+
+    @Test
+    public void testWaiterTakesOverFailedRequest() throws Exception
+    {
+        final ResultCache cache = new ResultCache(index, 10);
+        assertNull(cache.acquire("key", null));
+
+        final CountDownLatch done = new CountDownLatch(1);
+        final AtomicReference<Boolean> tookOver = new AtomicReference<>();
+        final Thread waiter = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    tookOver.set(cache.acquire("key", null) == null);
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                }
+                done.countDown();
+            }
+        });
+        waiter.start();
+        cache.release("key", null);
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertTrue("Processes it itself", tookOver.get());
+    }
+
+    private File createFile(final String name,
+                            final int length) throws IOException
+    {
+        final File file = new File(folder.getRoot(), name);
+        try (FileOutputStream stream = new FileOutputStream(file))
+        {
+            stream.write(new byte[length]);
+        }
+        return file;
+    }
+}
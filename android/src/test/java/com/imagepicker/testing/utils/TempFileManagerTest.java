@@ -0,0 +1,119 @@
+package com.imagepicker.testing.utils;
+
+import com.imagepicker.utils.TempFileManager;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+public class TempFileManagerTest
+{
+    private static final long NOW = 1000L * 24 * 60 * 60 * 1000;
+    private static final long HOUR = 60 * 60 * 1000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File outputs;
+    private File captures;
+    private File index;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        outputs = folder.newFolder("outputs");
+        captures = folder.newFolder("captures");
+        index = new File(folder.getRoot(), "index");
+    }
+
+    @Test
+    public void testTrimEvictsOldestBeyondQuota() throws IOException
+    {
+        final TempFileManager manager = new TempFileManager(outputs, index, 250, 10 * 24 * HOUR);
+        final File oldest = createFile(outputs, "a.jpg", 100, NOW - 3 * HOUR);
+        final File older = createFile(outputs, "b.jpg", 100, NOW - 2 * HOUR);
+        final File newest = createFile(outputs, "c.jpg", 100, NOW - HOUR);
+
+        final TempFileManager.Result result = manager.trim(NOW);
+
+        assertEquals(1, result.deletedFiles);
+        assertEquals(100, result.freedBytes);
+        assertFalse(oldest.exists());
+        assertTrue(older.exists());
+        assertTrue(newest.exists());
+    }
+
+    @Test
+    public void testTrimEvictsByAge() throws IOException
+    {
+        final TempFileManager manager = new TempFileManager(outputs, index, 1000, 24 * HOUR);
+        final File expired = createFile(outputs, "a.jpg", 10, NOW - 25 * HOUR);
+        final File recent = createFile(outputs, "b.jpg", 10, NOW - HOUR);
+
+        assertEquals(1, manager.trim(NOW).deletedFiles);
+        assertFalse(expired.exists());
+        assertTrue(recent.exists());
+    }
+
+    @Test
+    public void testTrimKeepsFreshFiles() throws IOException
+    {
+        final TempFileManager manager = new TempFileManager(outputs, index, 0, 0);
+        final File fresh = createFile(outputs, "a.jpg", 100, NOW - TempFileManager.MIN_AGE_MS / 2);
+
+        assertEquals("Just returned result stays over the quota", 0, manager.trim(NOW).deletedFiles);
+        assertTrue(fresh.exists());
+    }
+
+    @Test
+    public void testTrackedFilesSurviveRestart() throws IOException
+    {
+        final File capture = createFile(captures, "capture.jpg", 100, NOW - 2 * HOUR);
+        final File untracked = createFile(captures, "other.jpg", 100, NOW - 2 * HOUR);
+        new TempFileManager(outputs, index, 1000, 24 * HOUR).track(capture);
+
+        final TempFileManager restarted = new TempFileManager(outputs, index, 0, 24 * HOUR);
+        assertEquals(1, restarted.trim(NOW).deletedFiles);
+        assertFalse(capture.exists());
+        assertTrue("Only tracked files outside of the output directory are deleted", untracked.exists());
+    }
+
+    @Test
+    public void testDeleteAll() throws IOException
+    {
+        final TempFileManager manager = new TempFileManager(outputs, index, 1000, 24 * HOUR);
+        final File capture = createFile(captures, "capture.jpg", 30, NOW);
+        manager.track(capture);
+        createFile(outputs, "a.jpg", 20, NOW);
+
+        final TempFileManager.Result result = manager.deleteAll();
+
+        assertEquals(2, result.deletedFiles);
+        assertEquals(50, result.freedBytes);
+        assertEquals(0, outputs.listFiles().length);
+        assertFalse(capture.exists());
+    }
+
+    private static File createFile(final File directory,
+                                   final String name,
+                                   final int length,
+                                   final long lastModified) throws IOException
+    {
+        final File file = new File(directory, name);
+        try (FileOutputStream stream = new FileOutputStream(file))
+        {
+            stream.write(new byte[length]);
+        }
+        assertTrue(file.setLastModified(lastModified));
+        return file;
+    }
+}
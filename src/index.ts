@@ -8,7 +8,12 @@
  */
 
 import NativeInterface from './internal/nativeInterface';
-import {ImagePickerOptions, ImagePickerResponse} from './internal/types';
+import {
+  ImagePickerCleanupResult,
+  ImagePickerJob,
+  ImagePickerOptions,
+  ImagePickerResponse,
+} from './internal/types';
 import {processColor} from 'react-native';
 
 const DEFAULT_OPTIONS: ImagePickerOptions = {
@@ -30,6 +35,34 @@ const DEFAULT_OPTIONS: ImagePickerOptions = {
 
 type Callback = (response: ImagePickerResponse) => void;
 type OptionsOrCallback = ImagePickerOptions | Callback;
+type AsyncLaunchMethod = 'launchCameraAsync' | 'launchImageLibraryAsync';
+
+let nextJobId = 0;
+
+function startJob(
+  method: AsyncLaunchMethod,
+  options: ImagePickerOptions,
+): ImagePickerJob {
+  const jobId = `job-${++nextJobId}`;
+  const launch = NativeInterface[method];
+  const promise = launch
+    ? launch(jobId, {
+        ...DEFAULT_OPTIONS,
+        ...options,
+        tintColor: processColor(options.tintColor || DEFAULT_OPTIONS.tintColor),
+      })
+    : Promise.reject(new Error(`${method} is not supported on this platform`));
+
+  return {
+    jobId,
+    promise,
+    cancel: () => {
+      if (NativeInterface.cancel) {
+        NativeInterface.cancel(jobId);
+      }
+    },
+  };
+}
 
 class ImagePicker {
   showImagePicker(options: ImagePickerOptions, callback: Callback): void;
@@ -86,6 +119,20 @@ class ImagePicker {
       callback,
     );
   }
+
+  launchCameraAsync(options: ImagePickerOptions = {}): ImagePickerJob {
+    return startJob('launchCameraAsync', options);
+  }
+
+  launchImageLibraryAsync(options: ImagePickerOptions = {}): ImagePickerJob {
+    return startJob('launchImageLibraryAsync', options);
+  }
+
+  cleanupTempFiles(): Promise<ImagePickerCleanupResult> {
+    return NativeInterface.cleanupTempFiles
+      ? NativeInterface.cleanupTempFiles()
+      : Promise.resolve({deletedFiles: 0, freedBytes: 0});
+  }
 }
 
 export default new ImagePicker();
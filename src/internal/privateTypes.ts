@@ -7,7 +7,11 @@
  * @format
  */
 
-import {ImagePickerResponse, ImagePickerOptions} from './types';
+import {
+  ImagePickerCleanupResult,
+  ImagePickerResponse,
+  ImagePickerOptions,
+} from './types';
 
 export interface ImagePickerNativeModule {
   showImagePicker(
@@ -22,4 +26,15 @@ export interface ImagePickerNativeModule {
     options: ImagePickerOptions,
     callback: (response: ImagePickerResponse) => void,
   ): void;
+  launchCameraAsync?(
+    jobId: string,
+    options: ImagePickerOptions,
+  ): Promise<ImagePickerResponse>;
+  launchImageLibraryAsync?(
+    jobId: string,
+    options: ImagePickerOptions,
+  ): Promise<ImagePickerResponse>;
+  cancel?(jobId: string): void;
+  acknowledgeDataChunk?(requestId: string): void;
+  cleanupTempFiles?(): Promise<ImagePickerCleanupResult>;
 }
@@ -19,11 +19,53 @@ export interface ImagePickerResponse {
   height: number;
   fileSize: number;
   type?: string;
+  outputFormat?: ImagePickerOutputFormat;
+  quality?: number;
+  encodeAttempts?: number;
   fileName?: string;
   path?: string;
   latitude?: number;
   longitude?: number;
   timestamp?: string;
+  requestId?: string;
+  chunkSize?: number;
+  assets?: ImagePickerResponse[];
+  outputs?: ImagePickerResponse[];
+  name?: string;
+  systemThumbnail?: boolean;
+  originalRotation?: number;
+  duration?: number;
+  bitrate?: number;
+  poster?: ImagePickerResponse;
+  posterError?: string;
+  metadataError?: string;
+  fileCopyUri?: string;
+  copiedBytes?: number;
+  copyThroughput?: number;
+  copyError?: string;
+  digest?: string;
+  originalDigest?: string;
+}
+
+export type ImagePickerOutputFormat = 'jpeg' | 'png' | 'webp' | 'webp-lossless' | 'heif';
+
+export interface ImagePickerJob {
+  jobId: string;
+  promise: Promise<ImagePickerResponse>;
+  cancel(): void;
+}
+
+export interface ImagePickerCleanupResult {
+  deletedFiles: number;
+  freedBytes: number;
+}
+
+export interface ImagePickerDataChunk {
+  requestId: string;
+  index?: number;
+  data?: string;
+  last: boolean;
+  error?: string;
 }
 
 export interface ImagePickerCustomButtonOptions {
@@ -45,14 +87,41 @@ export interface ImagePickerOptions {
   quality?: number;
   videoQuality?: 'low' | 'medium' | 'high';
   durationLimit?: number;
+  posterFrame?: ImagePickerPosterFrameOptions;
   rotation?: number;
   allowsEditing?: boolean;
   noData?: boolean;
+  outputMode?: 'data' | 'file' | 'stream';
+  outputFormat?: ImagePickerOutputFormat;
+  multiple?: boolean;
+  chunkSize?: number;
+  copyTo?: 'cachesDirectory' | 'documentDirectory';
+  digest?: 'sha256' | 'md5';
+  decodeMemoryBudget?: number;
+  maxFileSize?: number;
+  outputs?: ImagePickerOutputOptions[];
+  thumbnail?: boolean;
   storageOptions?: ImagePickerStorageOptions;
   permissionDenied?: ImagePickerPermissionDeniedOptions;
   tintColor?: number | string;
 }
 
+export interface ImagePickerOutputOptions {
+  name?: string;
+  maxWidth?: number;
+  maxHeight?: number;
+  quality?: number;
+  outputFormat?: ImagePickerOutputFormat;
+}
+
+export interface ImagePickerPosterFrameOptions {
+  maxWidth?: number;
+  maxHeight?: number;
+  quality?: number;
+  outputFormat?: ImagePickerOutputFormat;
+  time?: number;
+}
+
 export interface ImagePickerStorageOptions {
   skipBackup?: boolean;
   path?: string;